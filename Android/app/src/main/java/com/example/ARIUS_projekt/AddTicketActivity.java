@@ -4,50 +4,41 @@ import android.annotation.SuppressLint;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.provider.MediaStore;
-import android.util.Base64;
-import android.util.Log;
 import android.view.MenuItem;
 import android.view.MotionEvent;
+import android.view.View;
 import android.widget.*;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import org.json.JSONObject;
-
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.Locale;
 
 /**
  * Activity for adding a new ticket.
  * This activity provides a form for the user to input ticket details such as date, time,
  * license plate number, location, and an optional photo.
- * The entered data is then sent to a backend server.
+ * The entered data is then sent to a backend server by the process-wide {@link TicketUploader},
+ * so the upload continues (and its progress stays visible) when the activity is recreated.
  */
-public class AddTicketActivity extends AppCompatActivity {
+public class AddTicketActivity extends AppCompatActivity implements TicketUploader.Listener {
 
     // UI elements for inputting ticket data and actions.
     EditText dateInput, timeInput, licenseInput, locationInput; // Input fields for ticket details.
-    Button saveButton, photoButton; // Buttons for saving the ticket and adding a photo.
+    Button saveButton, photoButton, cancelButton; // Buttons for saving the ticket, adding a photo and cancelling the upload.
     ImageView photoPreview; // ImageView to display a preview of the selected photo.
+    ProgressBar uploadProgress; // Progress of the running upload.
     Uri imageUri; // URI of the selected image, if any.
+    TicketUploader uploader; // Runs the upload in the background.
 
     // Request code for picking an image from the gallery.
     static final int REQUEST_IMAGE_PICK = 1;
-    // TAG for logging purposes, used to identify logs from this activity.
-    private static final String TAG = "AddTicketActivity";
+    // Key under which the selected image URI is kept across recreation.
+    private static final String STATE_IMAGE_URI = "image_uri";
 
     /**
      * Called when the activity is first created.
@@ -73,6 +64,16 @@ public class AddTicketActivity extends AppCompatActivity {
         saveButton = findViewById(R.id.buttonSaveTicket);
         photoButton = findViewById(R.id.buttonAddPhoto);
         photoPreview = findViewById(R.id.imagePreview);
+        cancelButton = findViewById(R.id.buttonCancelUpload);
+        uploadProgress = findViewById(R.id.progressUpload);
+        uploader = TicketUploader.getInstance(this);
+
+        // Restore the photo selected before the activity was recreated (e.g. on rotation).
+        if (savedInstanceState != null) {
+            imageUri = savedInstanceState.getParcelable(STATE_IMAGE_URI);
+            if (imageUri != null) photoPreview.setImageURI(imageUri);
+            uploader.preparePhoto(imageUri); // No-op if it survived in the uploader already.
+        }
 
         // Enable the "Up" button (back arrow) in the ActionBar if an ActionBar is present.
         if (getSupportActionBar() != null) {
@@ -113,14 +114,14 @@ public class AddTicketActivity extends AppCompatActivity {
                 return; // Stop further execution if validation fails.
             }
 
-            // Convert the selected image URI to a Base64 encoded string, if an image was selected.
-            String imageBase64 = imageUri != null ? getBase64FromUri(imageUri) : null;
-
-            // Execute an AsyncTask to send the ticket data to the backend server.
-            // Network operations must not be done on the main UI thread.
-            new SendTicketTask(date, time, license, location, imageBase64).execute();
+            // Prepare the photo (if one was selected) and send the ticket in the background.
+            // Progress and the outcome arrive through the TicketUploader.Listener methods.
+            uploader.start(date, time, license, location, imageUri);
         });
 
+        // Set OnClickListener for the cancel button to abort the running upload.
+        cancelButton.setOnClickListener(v -> uploader.cancel());
+
         // Set OnClickListener for the photo button to allow the user to pick an image.
         photoButton.setOnClickListener(v -> {
             // Create an Intent to pick an image from the device's external storage (gallery).
@@ -132,169 +133,74 @@ public class AddTicketActivity extends AppCompatActivity {
     }
 
     /**
-     * AsyncTask to send the new ticket data to the backend server.
-     * This class handles the network operation in a background thread and updates the UI
-     * on the main thread based on the outcome.
+     * Attaches to the uploader, which replays the state of an upload started
+     * before the activity was recreated.
      */
-    private class SendTicketTask extends AsyncTask<Void, Void, Boolean> {
-
-        // Data for the new ticket.
-        private final String date, time, license, location, imageBase64;
-        // Error message to display if the operation fails. Default message is set.
-        private String errorMsg = "Błąd połączenia z serwerem"; // "Server connection error"
-
-        /**
-         * Constructor for SendTicketTask.
-         * @param date The date of the ticket.
-         * @param time The time of the ticket.
-         * @param license The license plate number.
-         * @param location The location of the incident.
-         * @param imageBase64 The Base64 encoded string of the image, or null if no image.
-         */
-        SendTicketTask(String date, String time, String license, String location, String imageBase64) {
-            this.date = date;
-            this.time = time;
-            this.license = license;
-            this.location = location;
-            this.imageBase64 = imageBase64;
-        }
-
-        /**
-         * Performs the network operation in the background.
-         * This method constructs a JSON payload with the ticket data and sends it
-         * as a POST request to the backend server.
-         * @param voids No parameters are used for this background task.
-         * @return True if the ticket was successfully sent and a 201 (Created) response was received,
-         *         false otherwise.
-         */
-        @Override
-        protected Boolean doInBackground(Void... voids) {
-            HttpURLConnection conn = null;
-            try {
-                // Retrieve JWT token from shared preferences.
-                SharedPreferences prefs = getSharedPreferences("user", MODE_PRIVATE);
-                String jwtToken = prefs.getString("token", "");
-
-                // Get a configured connection using GeneralUtils with auth.
-                conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/ticket",
-                        "POST",
-                        5000,
-                        15000,
-                        jwtToken
-                );
-
-                // Create JSON payload.
-                JSONObject json = new JSONObject();
-                json.put("vehicle_number", license);
-                json.put("location", location);
-                json.put("date", date);
-                json.put("time", time);
-                json.put("notified", false);
-                json.put("uploaded_at", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()));
-                if (imageBase64 != null) {
-                    json.put("image_base64", imageBase64);
-                }
-
-                // Send the payload.
-                OutputStream os = conn.getOutputStream();
-                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                os.flush();
-                os.close();
-
-                // Read response from the server.
-                int responseCode = conn.getResponseCode();
-                InputStream input = (responseCode < 400) ? conn.getInputStream() : conn.getErrorStream();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-
-                Log.d(TAG, "Response from server: " + response);
-
-                if (responseCode == 201) {
-                    return true;
-                } else {
-                    JSONObject errorJson = new JSONObject(response.toString());
-                    errorMsg = errorJson.optString("msg", "Błąd podczas zapisywania danych");
-                    return false;
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error sending ticket", e);
-                return false;
-            } finally {
-                if (conn != null) conn.disconnect();
-            }
-        }
+    @Override
+    protected void onStart() {
+        super.onStart();
+        showUploading(false);
+        uploader.attach(this);
+    }
 
-        /**
-         * Executes on the UI thread after the background computation finishes.
-         * This method updates the UI based on the success or failure of the SendTicketTask.
-         * @param success True if the ticket was successfully sent, false otherwise.
-         */
-        @Override
-        protected void onPostExecute(Boolean success) {
-            if (success) {
-                GeneralUtils.showToast(AddTicketActivity.this, "Dodano bilet"); // "Ticket added"
-                clearForm(); // Clear the input form for the next entry.
-            } else {
-                GeneralUtils.showToast(AddTicketActivity.this, errorMsg); // Show the specific error message.
-            }
-        }
+    /**
+     * Detaches from the uploader; a running upload continues in the background.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        uploader.detach(this);
     }
 
     /**
-     * Converts the content of a given URI (typically an image) into a Base64 encoded string.
-     * This is used to send image data as part of a JSON payload.
+     * Saves the selected photo, which is not part of any view's state.
      *
-     * @param uri The URI of the content (image) to be converted.
-     * @return A Base64 encoded string representation of the image, or null if conversion fails.
+     * @param outState Bundle in which to place the saved state.
      */
-    private String getBase64FromUri(Uri uri) {
-        InputStream inputStream = null;
-        try {
-            // Get an InputStream from the content URI.
-            inputStream = getContentResolver().openInputStream(uri);
-            if (inputStream == null) {
-                Log.e(TAG, "Failed to open InputStream for URI: " + uri);
-                return null;
-            }
-
-            // Decode the InputStream into a Bitmap.
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-            if (bitmap == null) {
-                Log.e(TAG, "Failed to decode Bitmap from InputStream for URI: " + uri);
-                return null;
-            }
-
-            // Compress the Bitmap into a JPEG format and write it to a ByteArrayOutputStream.
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 80, outputStream); // Compress with 80% quality.
-            byte[] byteArray = outputStream.toByteArray(); // Get the byte array.
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putParcelable(STATE_IMAGE_URI, imageUri);
+    }
 
-            // Encode the byte array into a Base64 string without wrapping.
-            return Base64.encodeToString(byteArray, Base64.NO_WRAP);
+    /**
+     * Shows the progress of the running upload.
+     *
+     * @param percent Share of the ticket sent so far, or {@link TicketUploader#PROGRESS_PREPARING}
+     *                while the photo is being prepared.
+     */
+    @Override
+    public void onProgress(int percent) {
+        showUploading(true);
+        uploadProgress.setIndeterminate(percent == TicketUploader.PROGRESS_PREPARING);
+        if (percent != TicketUploader.PROGRESS_PREPARING) uploadProgress.setProgress(percent);
+    }
 
-        } catch (Exception e) {
-            // Log any exceptions that occur during the conversion process.
-            Log.e(TAG, "Error converting image URI to base64", e);
-            return null; // Return null if conversion fails.
-        } finally {
-            // Ensure the InputStream is closed in the finally block.
-            try {
-                if (inputStream != null) {
-                    inputStream.close();
-                }
-            } catch (IOException e) {
-                Log.e(TAG, "Error closing input stream", e);
-            }
+    /**
+     * Shows the outcome of the upload and clears the form if the ticket was saved.
+     *
+     * @param success True if the ticket was successfully saved.
+     * @param message Message to show to the user.
+     */
+    @Override
+    public void onFinished(boolean success, String message) {
+        showUploading(false);
+        GeneralUtils.showToast(AddTicketActivity.this, message);
+        if (success) {
+            clearForm(); // Clear the input form for the next entry.
         }
     }
 
+    /**
+     * Switches the form between editing and uploading: while uploading, saving is disabled
+     * and the progress bar and the cancel button are shown.
+     */
+    private void showUploading(boolean uploading) {
+        saveButton.setEnabled(!uploading);
+        uploadProgress.setVisibility(uploading ? View.VISIBLE : View.GONE);
+        cancelButton.setVisibility(uploading ? View.VISIBLE : View.GONE);
+    }
+
     /**
      * Clears all input fields in the form and resets the image preview.
      * This is typically called after a ticket has been successfully saved.
@@ -306,6 +212,7 @@ public class AddTicketActivity extends AppCompatActivity {
         locationInput.setText("");
         photoPreview.setImageDrawable(null); // Clear the image preview.
         imageUri = null; // Reset the image URI.
+        uploader.preparePhoto(null); // Drop the prepared photo.
 
     }
 
@@ -356,6 +263,8 @@ public class AddTicketActivity extends AppCompatActivity {
         if (requestCode == REQUEST_IMAGE_PICK && resultCode == RESULT_OK && data != null && data.getData() != null) {
             imageUri = data.getData(); // Get the URI of the selected image.
             photoPreview.setImageURI(imageUri); // Display the selected image in the preview ImageView.
+            // Start decoding and compressing it now, while the user fills in the rest of the form.
+            uploader.preparePhoto(imageUri);
         }
     }
 
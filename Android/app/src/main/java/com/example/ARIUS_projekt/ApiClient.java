@@ -0,0 +1,455 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Single shared HTTP client used by every screen to talk to the backend.
+ * <p>
+ * Connections are never {@code disconnect()}-ed after a successful call: the response body
+ * is drained and closed instead, which hands the socket back to the platform's keep-alive
+ * pool so the next request skips the TCP/TLS handshake. Timeouts are defined once per
+ * {@link Endpoint}, gzip responses are decoded transparently and the Bearer token is
+ * attached automatically for endpoints that require authorization.
+ * <p>
+ * Request bodies are streamed: a {@link RequestBody} writes itself straight into the
+ * connection's output stream, in fixed-length mode when its size is known up front and in
+ * chunked mode otherwise, so large uploads (e.g. ticket photos) are never buffered whole.
+ * <p>
+ * Calls can be made synchronously from a background thread with {@link #execute}
+ * (e.g. inside an AsyncTask) or asynchronously with {@link #enqueue}, which runs the call
+ * on a small shared thread pool and delivers the result on the main thread.
+ */
+public class ApiClient {
+
+    private static final String TAG = "ApiClient";
+
+    // Base address of the backend (10.0.2.2 is the host machine seen from the emulator).
+    public static final String BASE_URL = "http://10.0.2.2:5000";
+
+    // Number of background threads used by enqueue(); also the number of sockets kept warm.
+    private static final int MAX_CONCURRENT_CALLS = 4;
+
+    // Chunk size for bodies of unknown length (chunked transfer encoding)
+    private static final int STREAMING_CHUNK_SIZE = 16 * 1024;
+
+    private static volatile ApiClient instance;
+
+    private final SharedPreferences prefs;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Backend endpoints together with their timeouts and authorization requirements.
+     * Paths may contain {@link String#format} placeholders filled in by {@link Request}.
+     */
+    public enum Endpoint {
+        LOGIN("/auth/login", 5000, 30000, false),
+        REGISTER("/auth/register", 5000, 30000, false),
+        REGISTER_TOKEN("/auth/register_token", 5000, 15000, true),
+        TICKETS("/tickets", 5000, 30000, true),
+        TICKET_CHANGES("/tickets/changes", 5000, 15000, true),
+        TICKET_CREATE("/ticket", 5000, 15000, true),
+        TICKET("/ticket/%d", 5000, 30000, true),
+        TICKET_IMAGE("/ticket/%d/image", 5000, 30000, true),
+        TICKET_THUMBNAIL("/ticket/%d/thumbnail", 5000, 15000, true);
+
+        final String path;
+        final int connectTimeout;
+        final int readTimeout;
+        final boolean authorized;
+
+        Endpoint(String path, int connectTimeout, int readTimeout, boolean authorized) {
+            this.path = path;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.authorized = authorized;
+        }
+    }
+
+    /**
+     * Converts a response into a result. Runs on the thread executing the call,
+     * so it may freely read (and stream) the response body.
+     *
+     * @param <T> Type of the parsed result.
+     */
+    public interface ResponseHandler<T> {
+        T handle(Response response) throws Exception;
+    }
+
+    /**
+     * Body of a request, written directly to the connection.
+     */
+    public interface RequestBody {
+        /**
+         * @return The value of the Content-Type header.
+         */
+        String contentType();
+
+        /**
+         * @return The exact number of bytes {@link #writeTo} produces, or -1 if unknown
+         * (the body is then sent with chunked transfer encoding).
+         */
+        long contentLength();
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Receives the outcome of an {@link #enqueue} call on the main thread.
+     *
+     * @param <T> Type of the parsed result.
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onFailure(Exception e);
+    }
+
+    private ApiClient(Context context) {
+        this.prefs = context.getSharedPreferences("user", Context.MODE_PRIVATE);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(MAX_CONCURRENT_CALLS,
+                r -> new Thread(r, "ApiClient-" + threadCount.incrementAndGet()));
+
+        // Keep-alive is on by default, but make sure the pool is large enough for our thread pool
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_CONCURRENT_CALLS));
+    }
+
+    /**
+     * Returns the process-wide client instance.
+     *
+     * @param context Any context; only the application context is retained.
+     * @return The shared ApiClient.
+     */
+    public static ApiClient getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ApiClient.class) {
+                if (instance == null) {
+                    instance = new ApiClient(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Performs the request on the calling thread. Must not be called from the main thread.
+     *
+     * @param request The request to send.
+     * @param handler Converts the response into the result.
+     * @return The value produced by the handler.
+     * @throws Exception If the connection fails or the handler throws.
+     */
+    public <T> T execute(Request request, ResponseHandler<T> handler) throws Exception {
+        HttpURLConnection conn = open(request);
+        boolean reusable = false;
+        try {
+            if (request.body != null) {
+                long length = request.body.contentLength();
+                if (length >= 0) {
+                    conn.setFixedLengthStreamingMode(length);
+                } else {
+                    conn.setChunkedStreamingMode(STREAMING_CHUNK_SIZE);
+                }
+                OutputStream os = conn.getOutputStream();
+                request.body.writeTo(os);
+                os.close();
+            }
+
+            int code = conn.getResponseCode();
+            InputStream raw = code < 400 ? conn.getInputStream() : conn.getErrorStream();
+            if ("gzip".equalsIgnoreCase(conn.getContentEncoding()) && raw != null) {
+                raw = new GZIPInputStream(raw);
+            }
+
+            Response response = new Response(conn, code, raw);
+            T result = handler.handle(response);
+            response.close();
+            reusable = true;
+            return result;
+        } finally {
+            // Only a connection that failed mid-way is torn down; healthy ones go back to the pool
+            if (!reusable) conn.disconnect();
+        }
+    }
+
+    /**
+     * Performs the request on the shared thread pool and delivers the result on the main thread.
+     * Cancelling the returned future suppresses the callback.
+     *
+     * @param request  The request to send.
+     * @param handler  Converts the response into the result (runs in the background).
+     * @param callback Receives the result or the failure on the main thread.
+     * @return A future that can be used to cancel the call.
+     */
+    public <T> Future<T> enqueue(Request request, ResponseHandler<T> handler, Callback<T> callback) {
+        AsyncCall<T> call = new AsyncCall<>(request, handler, callback);
+        executor.execute(call);
+        return call;
+    }
+
+    /**
+     * Opens and configures a connection for the given request.
+     */
+    private HttpURLConnection open(Request request) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(BASE_URL + request.path).openConnection();
+        conn.setConnectTimeout(request.endpoint.connectTimeout);
+        conn.setReadTimeout(request.endpoint.readTimeout);
+        conn.setRequestMethod(request.method);
+        conn.setRequestProperty("Accept", "application/json");
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+
+        if (request.body != null) {
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", request.body.contentType());
+        }
+        if (request.endpoint.authorized) {
+            String token = request.token != null ? request.token : prefs.getString("token", "");
+            conn.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        return conn;
+    }
+
+    /**
+     * Future running a single call on the executor and posting its outcome to the main thread.
+     */
+    private final class AsyncCall<T> extends FutureTask<T> {
+
+        private final Callback<T> callback;
+
+        AsyncCall(Request request, ResponseHandler<T> handler, Callback<T> callback) {
+            super(() -> execute(request, handler));
+            this.callback = callback;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            mainHandler.post(() -> {
+                if (isCancelled()) return; // Cancelled while waiting for the main thread
+                try {
+                    callback.onSuccess(get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    callback.onFailure(cause instanceof Exception ? (Exception) cause : e);
+                } catch (InterruptedException e) {
+                    callback.onFailure(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Description of a single backend call.
+     */
+    public static class Request {
+
+        final String method;
+        final Endpoint endpoint;
+        String path;
+        @Nullable
+        final RequestBody body;
+        @Nullable
+        String token; // Overrides the token stored in SharedPreferences when set
+
+        private Request(String method, Endpoint endpoint, @Nullable RequestBody body, Object... pathArgs) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.path = pathArgs.length == 0
+                    ? endpoint.path
+                    : String.format(Locale.ROOT, endpoint.path, pathArgs);
+            this.body = body;
+        }
+
+        public static Request get(Endpoint endpoint, Object... pathArgs) {
+            return new Request("GET", endpoint, null, pathArgs);
+        }
+
+        public static Request post(Endpoint endpoint, JSONObject json, Object... pathArgs) {
+            return new Request("POST", endpoint, new JsonBody(json), pathArgs);
+        }
+
+        /**
+         * POST with a streamed body, e.g. a {@link MultipartBody}.
+         */
+        public static Request post(Endpoint endpoint, RequestBody body, Object... pathArgs) {
+            return new Request("POST", endpoint, body, pathArgs);
+        }
+
+        public static Request delete(Endpoint endpoint, Object... pathArgs) {
+            return new Request("DELETE", endpoint, null, pathArgs);
+        }
+
+        /**
+         * Appends a URL-encoded query parameter. Null values are skipped.
+         */
+        public Request query(String name, @Nullable Object value) {
+            if (value == null) return this;
+            try {
+                path += (path.indexOf('?') < 0 ? '?' : '&')
+                        + URLEncoder.encode(name, "UTF-8") + "="
+                        + URLEncoder.encode(String.valueOf(value), "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e); // UTF-8 is always supported
+            }
+            return this;
+        }
+
+        /**
+         * Uses the given JWT instead of the one stored in SharedPreferences
+         * (e.g. right after login, before the session has been saved).
+         */
+        public Request withToken(String jwtToken) {
+            this.token = jwtToken;
+            return this;
+        }
+    }
+
+    /**
+     * A JSON object sent as UTF-8 (small, so it is serialized once and sent with a fixed length).
+     */
+    private static class JsonBody implements RequestBody {
+
+        private final byte[] bytes;
+
+        JsonBody(JSONObject json) {
+            this.bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String contentType() {
+            return "application/json; charset=utf-8";
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Thrown by response handlers when the server answered with a non-2xx status.
+     */
+    public static class HttpException extends IOException {
+
+        public final int code;
+
+        public HttpException(int code, String message) {
+            super("Server error (" + code + "): " + message);
+            this.code = code;
+        }
+    }
+
+    /**
+     * Response of a call as seen by a {@link ResponseHandler}.
+     * The body is already gzip-decoded and is closed by the client after the handler returns.
+     */
+    public static class Response {
+
+        private final HttpURLConnection conn;
+        private final int code;
+        @Nullable
+        private final InputStream body;
+
+        Response(HttpURLConnection conn, int code, @Nullable InputStream body) {
+            this.conn = conn;
+            this.code = code;
+            this.body = body;
+        }
+
+        public int code() {
+            return code;
+        }
+
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+
+        @Nullable
+        public String header(String name) {
+            return conn.getHeaderField(name);
+        }
+
+        /**
+         * @return The response body stream (an empty stream if the server sent no body).
+         */
+        @NonNull
+        public InputStream body() {
+            return body != null ? body : new ByteArrayInputStream(new byte[0]);
+        }
+
+        /**
+         * Reads the whole body as a UTF-8 string. Only meant for small responses.
+         */
+        public String readString() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            InputStream in = body();
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+
+        /**
+         * Parses the body as a JSON object, returning an empty object for an empty body.
+         */
+        public JSONObject readJson() throws Exception {
+            String text = readString();
+            return text.isEmpty() ? new JSONObject() : new JSONObject(text);
+        }
+
+        /**
+         * Drains whatever the handler left unread and closes the stream, so the underlying
+         * socket can be reused for the next request.
+         */
+        void close() {
+            if (body == null) return;
+            try {
+                byte[] buffer = new byte[8192];
+                while (body.read(buffer) != -1) {
+                    // discard
+                }
+                body.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to drain response body", e);
+            }
+        }
+    }
+}
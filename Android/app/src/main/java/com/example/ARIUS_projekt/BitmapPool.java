@@ -0,0 +1,256 @@
+package com.example.ARIUS_projekt;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Process-wide pool of unused bitmaps, whose pixel memory is reused by later decodes.
+ * <p>
+ * Browsing ticket photos decodes one multi-megabyte bitmap after another; without reuse every
+ * one of them is a fresh allocation, and every dropped one is garbage the collector has to
+ * reclaim, which shows up as GC pauses while scrolling and switching tickets. Instead, bitmaps
+ * that nobody shows any more are {@link #put} here, and {@link #decode} hands them to
+ * {@link BitmapFactory} as {@link BitmapFactory.Options#inBitmap}, so the decoder writes into
+ * the existing pixel buffer.
+ * <p>
+ * Since Android 4.4 a bitmap can be reused for any image whose pixels fit in its allocation,
+ * so the pool is bucketed by allocation size: a decode takes the smallest pooled bitmap that is
+ * large enough, but not more than {@link #MAX_SIZE_MULTIPLE} times larger, so a thumbnail never
+ * pins a photo-sized buffer. The pool is bounded in bytes, drops its oldest bitmaps first, and is
+ * trimmed when the system is low on memory. Hit and miss counts show how well reuse works.
+ * <p>
+ * A bitmap must only be put into the pool once nothing draws it or holds on to it; after that
+ * its pixels may change at any time. All methods are thread-safe.
+ */
+public final class BitmapPool implements ComponentCallbacks2 {
+
+    private static final String TAG = "BitmapPool";
+
+    /**
+     * Decodes an image with the given options; called again without {@code inBitmap} if the
+     * pooled bitmap cannot be reused, so it must open its input afresh on each call.
+     */
+    public interface Decoder {
+        @Nullable
+        Bitmap decode(BitmapFactory.Options options) throws IOException;
+    }
+
+    // Largest allocation accepted for a request, as a multiple of the requested size
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    // Only the configuration the decoders produce is pooled
+    private static final Bitmap.Config CONFIG = Bitmap.Config.ARGB_8888;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private static volatile BitmapPool instance;
+
+    private final long maxBytes;
+
+    // Pooled bitmaps by allocation size, and all of them in the order they were added
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();
+    private long bytes;
+    private int hitCount;
+    private int missCount;
+    private int putCount;
+    private int evictionCount;
+
+    private BitmapPool(Context context) {
+        this.maxBytes = Runtime.getRuntime().maxMemory() / 16;
+        context.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Returns the process-wide pool.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static BitmapPool getInstance(Context context) {
+        if (instance == null) {
+            synchronized (BitmapPool.class) {
+                if (instance == null) {
+                    instance = new BitmapPool(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Decodes an image into a pooled bitmap if one fits, otherwise into a new one.
+     * The result is mutable, so it can be put into the pool again when it is no longer used.
+     *
+     * @param options Options of a bounds-only decode ({@code outWidth}, {@code outHeight}) with
+     *                the {@code inSampleSize} to decode at; {@code inJustDecodeBounds} is cleared.
+     * @return The decoded bitmap, or null if the image cannot be decoded.
+     */
+    @Nullable
+    public Bitmap decode(BitmapFactory.Options options, Decoder decoder) throws IOException {
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inPreferredConfig = CONFIG;
+        int sampleSize = Math.max(1, options.inSampleSize);
+        // Rounded up: decoders round the sampled size either way, and a larger bitmap still fits
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        Bitmap reusable = get(width, height);
+        options.inBitmap = reusable;
+        try {
+            Bitmap bitmap = decoder.decode(options);
+            if (bitmap == null && reusable != null) put(reusable); // Still unused
+            return bitmap;
+        } catch (IllegalArgumentException e) {
+            if (reusable == null) throw e;
+            // The decoder refused the bitmap (e.g. an unusual image format); decode without it
+            Log.w(TAG, "Could not decode into a pooled bitmap", e);
+            reusable.recycle();
+            options.inBitmap = null;
+            return decoder.decode(options);
+        } finally {
+            options.inBitmap = null; // Do not keep the bitmap reachable through the options
+        }
+    }
+
+    /**
+     * Takes a pooled bitmap that can hold a {@code width} x {@code height} image.
+     *
+     * @return The bitmap, or null if the pool has none of a suitable size.
+     */
+    @Nullable
+    public synchronized Bitmap get(int width, int height) {
+        int needed = width * height * BYTES_PER_PIXEL;
+        Map.Entry<Integer, ArrayDeque<Bitmap>> bucket = buckets.ceilingEntry(needed);
+        if (bucket == null || bucket.getKey() > (long) needed * MAX_SIZE_MULTIPLE) {
+            missCount++;
+            return null;
+        }
+        Bitmap bitmap = bucket.getValue().pollLast(); // Most recently added: likely still in cache
+        if (bucket.getValue().isEmpty()) buckets.remove(bucket.getKey());
+        order.remove(bitmap);
+        bytes -= bucket.getKey();
+        hitCount++;
+        return bitmap;
+    }
+
+    /**
+     * Hands a bitmap that is no longer used to the pool. Bitmaps that cannot be reused
+     * (immutable, of another configuration, or too large for the pool) are recycled instead.
+     */
+    public void put(@NonNull Bitmap bitmap) {
+        if (bitmap.isRecycled()) return;
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bitmap.getConfig() != CONFIG || size > maxBytes / 2) {
+            bitmap.recycle();
+            return;
+        }
+        synchronized (this) {
+            ArrayDeque<Bitmap> bucket = buckets.get(size);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                buckets.put(size, bucket);
+            }
+            bucket.addLast(bitmap);
+            order.addLast(bitmap);
+            bytes += size;
+            putCount++;
+            trimToSize(maxBytes);
+        }
+    }
+
+    /**
+     * Recycles the oldest pooled bitmaps until the pool holds at most {@code size} bytes.
+     */
+    public synchronized void trimToSize(long size) {
+        while (bytes > size && !order.isEmpty()) {
+            Bitmap eldest = order.pollFirst();
+            int eldestSize = eldest.getAllocationByteCount();
+            Iterator<Bitmap> bucket = buckets.get(eldestSize).iterator();
+            while (bucket.hasNext()) {
+                if (bucket.next() == eldest) {
+                    bucket.remove();
+                    break;
+                }
+            }
+            if (buckets.get(eldestSize).isEmpty()) buckets.remove(eldestSize);
+            bytes -= eldestSize;
+            evictionCount++;
+            eldest.recycle();
+        }
+    }
+
+    /**
+     * Recycles every pooled bitmap.
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * @return The number of requests that were served with a pooled bitmap.
+     */
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of requests the pool had no suitable bitmap for.
+     */
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The bytes currently held by pooled bitmaps.
+     */
+    public synchronized long size() {
+        return bytes;
+    }
+
+    /**
+     * @return The size the pool is trimmed to at a {@link ComponentCallbacks2} trim level.
+     * Caches that evict into the pool on a trim event trim it to this size again afterwards.
+     */
+    public long trimSize(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) return 0;
+        if (level >= TRIM_MEMORY_RUNNING_LOW) return maxBytes / 2;
+        return maxBytes;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trimToSize(trimSize(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Pooled bitmaps do not depend on the configuration
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        int requests = hitCount + missCount;
+        int hitPercent = requests != 0 ? 100 * hitCount / requests : 0;
+        return String.format(Locale.US, "BitmapPool[size=%d,maxSize=%d,hits=%d,misses=%d,puts=%d,evictions=%d,hitRate=%d%%]",
+                bytes, maxBytes, hitCount, missCount, putCount, evictionCount, hitPercent);
+    }
+}
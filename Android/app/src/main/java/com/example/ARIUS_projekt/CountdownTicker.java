@@ -0,0 +1,58 @@
+package com.example.ARIUS_projekt;
+
+import android.view.Choreographer;
+
+/**
+ * One shared, frame-aligned clock for the live countdowns of a screen.
+ * <p>
+ * Instead of a timer per row, a single {@link Choreographer} frame callback runs on the
+ * first frame after every whole second and hands the current time to its listener, which
+ * refreshes only the rows currently on screen. Between ticks nothing is scheduled, and
+ * while stopped (activity in the background) the ticker costs nothing at all, so the load
+ * stays flat regardless of how many tickets are loaded.
+ * <p>
+ * Must be used on the main thread.
+ */
+final class CountdownTicker implements Choreographer.FrameCallback {
+
+    /**
+     * Called on the main thread, once per second while the ticker runs.
+     */
+    interface Listener {
+        void onTick(long nowMillis);
+    }
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Listener listener;
+    private boolean running;
+
+    CountdownTicker(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts ticking with the next frame. Does nothing if already running.
+     */
+    void start() {
+        if (running) return;
+        running = true;
+        choreographer.postFrameCallback(this);
+    }
+
+    /**
+     * Stops ticking until {@link #start()} is called again.
+     */
+    void stop() {
+        running = false;
+        choreographer.removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        long now = System.currentTimeMillis();
+        listener.onTick(now);
+        // Wake up again with the first frame after the next whole second
+        choreographer.postFrameCallbackDelayed(this, 1000 - now % 1000);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.ARIUS_projekt;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal pull-style JSON tokenizer that reads straight from a response stream.
+ * <p>
+ * Unlike {@code org.json}, nothing is buffered beyond a fixed 8 KB char window, and unlike
+ * {@code android.util.JsonReader}, {@link #skipValue()} walks over strings without copying
+ * them, so multi-megabyte fields such as {@code image_base64} cost no heap at all.
+ * <p>
+ * The reader is deliberately lenient about separators (commas are consumed by
+ * {@link #hasNext()}) because it only ever parses our own backend's output.
+ */
+public class JsonTokenReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    // Reused for short values (names, dates, plates); never used for skipped values
+    private final StringBuilder scratch = new StringBuilder(64);
+
+    public JsonTokenReader(InputStream stream) {
+        this.in = new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    /**
+     * @return True if the current array or object has another element.
+     * Consumes the separating comma, if any.
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == ',') {
+            pos++;
+            c = peek();
+        }
+        return c != ']' && c != '}' && c != -1;
+    }
+
+    /**
+     * Reads an object member name together with the following colon.
+     */
+    public String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads a string value. Numbers and literals are returned as their text,
+     * and a JSON {@code null} is returned as {@code null}.
+     */
+    @Nullable
+    public String nextString() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            pos++;
+            scratch.setLength(0);
+            readString(scratch);
+            return scratch.toString();
+        }
+        String literal = readLiteral();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    /**
+     * Opens the next string value as a stream of its (unescaped) characters, so a
+     * multi-megabyte value can be consumed without ever holding it in memory.
+     * The returned reader must be read to the end or closed before this tokenizer is used again.
+     *
+     * @return The value's characters, or null for a JSON {@code null}.
+     */
+    @Nullable
+    public Reader nextStringReader() throws IOException {
+        if (peek() != '"') {
+            String literal = readLiteral();
+            if ("null".equals(literal)) return null;
+            throw new IOException("Expected a string but was " + literal);
+        }
+        pos++;
+        return new Reader() {
+            private boolean done; // Closing quote consumed
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (done) return -1;
+                int n = 0;
+                while (n < len) {
+                    if (pos == limit && !fill()) throw new IOException("Unterminated string");
+                    char c = buffer[pos++];
+                    if (c == '"') {
+                        done = true;
+                        break;
+                    }
+                    cbuf[off + n++] = c == '\\' ? readEscape() : c;
+                }
+                return n == 0 && done ? -1 : n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!done) readString(null); // Skip the unread rest of the value
+                done = true;
+            }
+        };
+    }
+
+    /**
+     * Reads a numeric value as an int.
+     */
+    public int nextInt() throws IOException {
+        String text = nextString();
+        if (text == null) throw new IOException("Expected a number but was null");
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Expected an int but was " + text, e);
+        }
+    }
+
+    /**
+     * Skips the next value (including nested arrays and objects) without materializing it.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int c = peek();
+            if (c == -1) throw new IOException("Unexpected end of JSON");
+            if (c == '"') {
+                pos++;
+                readString(null);
+            } else if (c == '[' || c == '{') {
+                pos++;
+                depth++;
+            } else if (c == ']' || c == '}') {
+                pos++;
+                depth--;
+            } else if (c == ',' || c == ':') {
+                pos++;
+            } else {
+                readLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote has been consumed.
+     *
+     * @param out Receives the decoded characters, or null to discard them.
+     */
+    private void readString(@Nullable StringBuilder out) throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) throw new IOException("Unterminated string");
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    if (out != null) out.append(buffer, start, pos - start - 1);
+                    return;
+                }
+                if (c == '\\') {
+                    if (out != null) out.append(buffer, start, pos - start - 1);
+                    char escaped = readEscape();
+                    if (out != null) out.append(escaped);
+                    start = pos;
+                }
+            }
+            if (out != null) out.append(buffer, start, pos - start);
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw new IOException("Malformed unicode escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case -1:
+                throw new IOException("Unterminated escape");
+            default:
+                return (char) c; // \" \\ \/
+        }
+    }
+
+    /**
+     * Reads an unquoted number or literal (true/false/null).
+     */
+    private String readLiteral() throws IOException {
+        scratch.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) break;
+            char c = buffer[pos];
+            if (c == ',' || c == ']' || c == '}' || c == ':' || Character.isWhitespace(c)) break;
+            scratch.append(c);
+            pos++;
+        }
+        if (scratch.length() == 0) throw new IOException("Expected a value");
+        return scratch.toString();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but was " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+        pos++;
+    }
+
+    /**
+     * Returns the next non-whitespace character without consuming it, or -1 at end of input.
+     */
+    private int peek() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            char c = buffer[pos];
+            if (!Character.isWhitespace(c)) return c;
+            pos++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        pos = 0;
+        limit = read;
+        return true;
+    }
+}
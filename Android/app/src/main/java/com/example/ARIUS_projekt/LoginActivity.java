@@ -16,13 +16,6 @@ import com.google.firebase.messaging.FirebaseMessaging;
 
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
-
 /**
  * Activity responsible for handling user login logic.
  * This version uses AsyncTask to perform network operations in the background.
@@ -84,52 +77,29 @@ public class LoginActivity extends Activity {
             String password = params[1]; // User's password
 
             try {
-                // Configure HTTP POST request to the login endpoint
-                HttpURLConnection conn = GeneralUtils.getHttpConnection(
-                        "http://10.0.2.2:5000/auth/login", // Localhost for emulator
-                        "POST", 5000, 30000
-                );
-
                 // Build JSON payload for login
                 JSONObject json = new JSONObject();
                 json.put("email", email);
                 json.put("password", password);
 
-                // Write JSON to request body
-                OutputStream os = conn.getOutputStream();
-                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                os.flush();
-                os.close();
-
-                // Read response code and body
-                int responseCode = conn.getResponseCode();
-                InputStream input = (responseCode < 400) ? conn.getInputStream() : conn.getErrorStream();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                StringBuilder response = new StringBuilder();
-                String line;
-
-                // Read server response line by line
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-
-                reader.close();
-                conn.disconnect(); // Always disconnect connection after use
-
-                // If login is successful (HTTP 200), extract token and user data
-                if (responseCode == 200) {
-                    JSONObject obj = new JSONObject(response.toString());
-                    name = obj.getString("name");
-                    surname = obj.getString("surname");
-                    token = obj.getString("access_token");
-                    return true;
-                } else {
-                    // If login failed, parse error message
-                    JSONObject errorJson = new JSONObject(response.toString());
-                    errorMsg = errorJson.optString("msg", "Błąd logowania");
-                    return false;
-                }
-
+                // Send it through the shared client and read the response body as JSON
+                return ApiClient.getInstance(LoginActivity.this).execute(
+                        ApiClient.Request.post(ApiClient.Endpoint.LOGIN, json),
+                        response -> {
+                            JSONObject obj = response.readJson();
+
+                            // If login is successful (HTTP 200), extract token and user data
+                            if (response.code() == 200) {
+                                name = obj.getString("name");
+                                surname = obj.getString("surname");
+                                token = obj.getString("access_token");
+                                return true;
+                            }
+
+                            // If login failed, parse error message
+                            errorMsg = obj.optString("msg", "Błąd logowania");
+                            return false;
+                        });
             } catch (Exception e) {
                 // Log any network or parsing errors
                 Log.e(TAG, "Login error", e);
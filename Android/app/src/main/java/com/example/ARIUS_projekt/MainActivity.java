@@ -38,8 +38,9 @@ public class MainActivity extends Activity {
         // Set up the logout button
         Button logoutButton = findViewById(R.id.buttonLogout);
         logoutButton.setOnClickListener(v -> {
-            // Clear stored user data (including token and FCM info)
+            // Clear stored user data (including token and FCM info) and the synced tickets
             getSharedPreferences("user", MODE_PRIVATE).edit().clear().apply();
+            TicketSyncEngine.getInstance(this).clear();
 
             // Navigate back to LoginActivity
             startActivity(new Intent(MainActivity.this, LoginActivity.class));
@@ -0,0 +1,120 @@
+package com.example.ARIUS_projekt;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streaming {@code multipart/form-data} request body.
+ * <p>
+ * Text fields are small and kept in memory; file parts are produced by a {@link Source}
+ * that writes straight into the connection when the request is sent, so a photo travels as
+ * raw bytes (no Base64, no String) and never has to be held in memory as a whole.
+ * If every part's size is known the body is sent with a fixed length, otherwise chunked.
+ */
+public final class MultipartBody implements ApiClient.RequestBody {
+
+    /**
+     * Writes the content of a file part.
+     */
+    public interface Source {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] DASHES = {'-', '-'};
+
+    private final String boundary = "ParkingTickets-" + UUID.randomUUID();
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * Adds a plain text field.
+     */
+    public MultipartBody addField(String name, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        parts.add(new Part(headers(name, null, null), bytes.length, out -> out.write(bytes)));
+        return this;
+    }
+
+    /**
+     * Adds a file part whose bytes are written by {@code source} while the request is sent.
+     *
+     * @param length Exact size of the content, or -1 if unknown.
+     */
+    public MultipartBody addFile(String name, String fileName, String contentType, long length,
+                                 @NonNull Source source) {
+        parts.add(new Part(headers(name, fileName, contentType), length, source));
+        return this;
+    }
+
+    @Override
+    public String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    @Override
+    public long contentLength() {
+        long boundaryLength = boundary.getBytes(StandardCharsets.UTF_8).length;
+        long total = DASHES.length + boundaryLength + DASHES.length + CRLF.length; // Closing delimiter
+        for (Part part : parts) {
+            if (part.length < 0) return -1;
+            total += DASHES.length + boundaryLength + CRLF.length
+                    + part.headers.length + part.length + CRLF.length;
+        }
+        return total;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] boundaryBytes = boundary.getBytes(StandardCharsets.UTF_8);
+        for (Part part : parts) {
+            out.write(DASHES);
+            out.write(boundaryBytes);
+            out.write(CRLF);
+            out.write(part.headers);
+            part.source.writeTo(out);
+            out.write(CRLF);
+        }
+        out.write(DASHES);
+        out.write(boundaryBytes);
+        out.write(DASHES);
+        out.write(CRLF);
+    }
+
+    /**
+     * Part headers, including the blank line that separates them from the content.
+     */
+    private static byte[] headers(String name, String fileName, String contentType) {
+        StringBuilder headers = new StringBuilder("Content-Disposition: form-data; name=\"")
+                .append(escape(name)).append('"');
+        if (fileName != null) headers.append("; filename=\"").append(escape(fileName)).append('"');
+        headers.append("\r\n");
+        if (contentType != null) headers.append("Content-Type: ").append(contentType).append("\r\n");
+        headers.append("\r\n");
+        return headers.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Percent-encodes the characters that would end a quoted header parameter.
+     */
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private static final class Part {
+        final byte[] headers;
+        final long length;
+        final Source source;
+
+        Part(byte[] headers, long length, Source source) {
+            this.headers = headers;
+            this.length = length;
+            this.source = source;
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.example.ARIUS_projekt;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
 import com.google.firebase.messaging.FirebaseMessagingService;
@@ -19,7 +21,10 @@ import com.google.firebase.messaging.RemoteMessage;
  */
 public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
-    private static final String CHANNEL_ID = "ticket_alerts"; // Notification channel ID
+    static final String CHANNEL_ID = "ticket_alerts"; // Notification channel ID
+    private static final int PUSH_NOTIFICATION_ID = 1001;
+    // Data key of the backend's expiry push, naming the ticket it reports
+    private static final String KEY_TICKET_ID = "ticket_id";
     private static final String TAG = "FCM"; // Tag for logging
 
     /**
@@ -62,19 +67,34 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
                 ? remoteMessage.getNotification().getBody()
                 : "";
 
+        // An expiry push takes the place of the on-device alert for the same ticket (or vice versa)
+        String ticketId = remoteMessage.getData().get(KEY_TICKET_ID);
+        if (ticketId != null) {
+            try {
+                showNotification(this, TicketExpiryReceiver.NOTIFICATION_TAG, title, body, Integer.parseInt(ticketId));
+                return;
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Ignoring malformed ticket ID: " + ticketId);
+            }
+        }
+
         // Display the notification to the user
-        showNotification(title, body);
+        showNotification(this, null, title, body, PUSH_NOTIFICATION_ID);
     }
 
     /**
      * Builds and shows a notification using NotificationCompat.
      * Handles backward compatibility with Android O and above.
+     * Shared with {@link TicketExpiryReceiver}, which posts on-device expiry alerts to the same channel.
+     * @param context Context used to reach the notification service.
+     * @param tag Notification tag, or null; notifications are identified by tag and ID together.
      * @param title The notification title.
      * @param body The notification message body.
+     * @param id Notification ID; a later notification with the same tag and ID replaces this one.
      */
-    private void showNotification(String title, String body) {
+    static void showNotification(Context context, @Nullable String tag, String title, String body, int id) {
         // Get the system NotificationManager
-        NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        NotificationManager manager = (NotificationManager) context.getSystemService(NOTIFICATION_SERVICE);
 
         // For Android 8.0 (API 26) and above, create a notification channel
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -87,23 +107,23 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         }
 
         // Intent to launch MainActivity when the user taps the notification
-        Intent intent = new Intent(this, MainActivity.class);
+        Intent intent = new Intent(context, MainActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(
-                this,
+                context,
                 0,
                 intent,
                 PendingIntent.FLAG_IMMUTABLE // Ensures security on modern Android versions
         );
 
         // Build the notification using NotificationCompat for backward compatibility
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setContentTitle(title)                      // Set title
                 .setContentText(body)                        // Set message body
                 .setSmallIcon(R.drawable.ic_notification)    // Set small icon (must exist in resources)
                 .setAutoCancel(true)                         // Automatically remove when tapped
                 .setContentIntent(pendingIntent);            // Set the intent to launch on click
 
-        // Display the notification with a unique ID
-        manager.notify(1001, builder.build());
+        // Display the notification under the caller's tag and ID
+        manager.notify(tag, id, builder.build());
     }
 }
@@ -14,13 +14,6 @@ import androidx.annotation.Nullable;
 
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
-
 /**
  * Activity responsible for handling user registration.
  * It collects input, validates fields, and sends a request to the backend server.
@@ -101,11 +94,6 @@ public class RegisterActivity extends Activity {
         @Override
         protected String doInBackground(Void... voids) {
             try {
-                // Create a POST connection using the general utility method
-                HttpURLConnection conn = GeneralUtils.getHttpConnection(
-                        "http://10.0.2.2:5000/auth/register", "POST", 5000, 30000
-                );
-
                 // Build a JSON object with registration data
                 JSONObject json = new JSONObject();
                 json.put("name", firstName);
@@ -113,30 +101,14 @@ public class RegisterActivity extends Activity {
                 json.put("email", email);
                 json.put("password", password);
 
-                // Write JSON data to request body
-                OutputStream os = conn.getOutputStream();
-                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                os.flush();
-                os.close();
-
-                // Capture server response code (e.g., 201 or 400)
-                responseCode = conn.getResponseCode();
-
-                // Read response body depending on success or error
-                InputStream input = (responseCode < 400) ? conn.getInputStream() : conn.getErrorStream();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                StringBuilder result = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    result.append(line);
-                }
-
-                reader.close();
-                conn.disconnect();
-
-                // Return raw server response (expected to be JSON)
-                return result.toString();
-
+                // Send it through the shared client; capture the response code (e.g., 201 or 400)
+                // and return the raw server response (expected to be JSON)
+                return ApiClient.getInstance(RegisterActivity.this).execute(
+                        ApiClient.Request.post(ApiClient.Endpoint.REGISTER, json),
+                        response -> {
+                            responseCode = response.code();
+                            return response.readString();
+                        });
             } catch (Exception e) {
                 // Log any issues that occur during the network request
                 Log.e(TAG, "Exception during registration", e);
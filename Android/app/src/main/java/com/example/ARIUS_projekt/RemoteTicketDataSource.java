@@ -0,0 +1,156 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * {@link TicketDataSource} that reads the user's tickets from {@code GET /tickets}
+ * one page at a time, following the cursor the backend returns in {@code X-Next-Cursor}.
+ * Pages are requested without the ticket images ({@code images=false}); the list shows
+ * thumbnails, which are loaded separately (see {@link TicketImageCache}).
+ */
+public class RemoteTicketDataSource implements TicketDataSource {
+
+    // Number of tickets requested per page; one page is enough to fill the first screen
+    static final int PAGE_SIZE = 50;
+
+    private final ApiClient client;
+
+    @Nullable
+    private String nextCursor;        // Cursor of the next page, null before the first page
+    @Nullable
+    private String syncToken;         // Sync token returned with the first page of the current load
+    private boolean hasMore = true;   // False once the backend stops sending a next cursor
+    @Nullable
+    private Future<?> pending;        // Page request currently in flight
+
+    public RemoteTicketDataSource(Context context) {
+        this.client = ApiClient.getInstance(context);
+    }
+
+    @Override
+    public void loadInitial(Callback callback) {
+        reset();
+        loadPage(callback, true);
+    }
+
+    @Override
+    public void loadMore(Callback callback) {
+        if (!hasMore || isLoading()) return;
+        loadPage(callback, false);
+    }
+
+    @Override
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return The sync token the backend sent with the first page of the current load.
+     * Every change made after that moment can be fetched from {@code /tickets/changes}.
+     */
+    @Nullable
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    @Override
+    public boolean isLoading() {
+        return pending != null;
+    }
+
+    @Override
+    public void cancel() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * @return The cursor of the next page, or null if none has been loaded or none is left.
+     */
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Resumes paging from a position saved earlier (e.g. in {@link TicketRepository}),
+     * so {@link #loadMore} continues where a previous session stopped.
+     */
+    public void restore(@Nullable String nextCursor, boolean hasMore) {
+        cancel();
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Cancels any request in flight and forgets the paging position.
+     */
+    public void reset() {
+        cancel();
+        nextCursor = null;
+        syncToken = null;
+        hasMore = true;
+    }
+
+    private void loadPage(Callback callback, boolean reset) {
+        pending = client.enqueue(
+                ApiClient.Request.get(ApiClient.Endpoint.TICKETS)
+                        .query("limit", PAGE_SIZE)
+                        .query("cursor", nextCursor)
+                        .query("images", false),
+                RemoteTicketDataSource::readPage,
+                new ApiClient.Callback<Page>() {
+                    @Override
+                    public void onSuccess(Page page) {
+                        pending = null;
+                        if (reset) syncToken = page.syncToken;
+                        nextCursor = page.nextCursor;
+                        hasMore = page.nextCursor != null;
+                        callback.onTicketsLoaded(page.tickets, reset);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        pending = null;
+                        callback.onError(e);
+                    }
+                });
+    }
+
+    /**
+     * Streams one page of tickets out of the response (runs on the client's thread pool).
+     */
+    static Page readPage(ApiClient.Response response) throws Exception {
+        if (!response.isSuccessful()) {
+            throw new ApiClient.HttpException(response.code(), response.readString());
+        }
+        List<Ticket> tickets = new ArrayList<>(PAGE_SIZE);
+        TicketJsonParser.parseTicketArray(response.body(), tickets::add);
+        return new Page(tickets, response.header("X-Next-Cursor"), response.header("X-Sync-Token"));
+    }
+
+    /**
+     * A single page of tickets together with the cursor of the page that follows it.
+     */
+    static class Page {
+        final List<Ticket> tickets;
+        @Nullable
+        final String nextCursor;
+        @Nullable
+        final String syncToken;
+
+        Page(List<Ticket> tickets, @Nullable String nextCursor, @Nullable String syncToken) {
+            this.tickets = tickets;
+            this.nextCursor = nextCursor;
+            this.syncToken = syncToken;
+        }
+    }
+}
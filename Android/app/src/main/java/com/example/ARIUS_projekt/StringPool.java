@@ -0,0 +1,51 @@
+package com.example.ARIUS_projekt;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicating string pool for the ticket data layer.
+ * <p>
+ * Fleet users register the same few plates and parking zones over and over, so most
+ * ticket strings are repeats. Every plate, location and label passes through
+ * {@link #TICKETS} when a {@link Ticket} is created, and equal values end up sharing one
+ * canonical instance. Because the stored values are already normalized (see {@link Ticket}),
+ * the canonical instance doubles as a grouping key, and two pooled values are equal exactly
+ * when they are the same reference.
+ * <p>
+ * Entries are held weakly: a value nobody references any more (e.g. after logout) is
+ * collected together with its pool entry. Thread-safe; tickets are built on several threads.
+ */
+public final class StringPool {
+
+    /**
+     * Pool shared by all ticket strings.
+     */
+    public static final StringPool TICKETS = new StringPool();
+
+    // Canonical instance by value; the value refers to the key itself, so it is held weakly too
+    private final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+    /**
+     * @return The canonical instance equal to {@code value}, or null for null.
+     */
+    public String intern(String value) {
+        if (value == null) return null;
+        synchronized (pool) {
+            WeakReference<String> ref = pool.get(value);
+            String canonical = ref != null ? ref.get() : null;
+            if (canonical != null) return canonical;
+            pool.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return The number of distinct values currently pooled.
+     */
+    public int size() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+}
@@ -1,36 +1,130 @@
 package com.example.ARIUS_projekt;
 
-import java.io.Serializable;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Comparator;
+import java.util.Locale;
 
 /**
  * Data model representing a traffic ticket.
- * Implements Serializable to allow passing Ticket objects between activities via Intents.
+ * <p>
+ * The expiry is kept as a single primitive epoch minute (see {@link TicketTime}) instead of
+ * separate date and time strings, so sorting and comparing by expiry never parses anything.
+ * Implements Parcelable to pass tickets between activities via Intents without reflective
+ * Java serialization. The ticket image is not part of the model; it is fetched separately.
+ * <p>
+ * All strings are normalized and then interned in {@link StringPool#TICKETS}, so tickets for the
+ * same plate or location share one instance. {@link #license} and {@link #location} can thus
+ * serve as grouping keys and be compared by reference.
  */
-public class Ticket implements Serializable {
+public final class Ticket implements Parcelable {
+
+    // Orders tickets by expiry, earliest first (ties broken by ID)
+    public static final Comparator<Ticket> EXPIRY_ORDER = (a, b) -> a.expiryMinute != b.expiryMinute
+            ? Integer.compare(a.expiryMinute, b.expiryMinute)
+            : Integer.compare(a.id, b.id);
+
+    public final int id;              // Unique ticket ID, used for referencing tickets in backend systems.
+    public final int expiryMinute;    // Expiry as wall-clock minutes since 1970-01-01 (TicketTime.INVALID if unknown).
+    public final String license;      // License plate number, upper-cased with single spaces (pooled).
+    public final String location;     // Location where the ticket was issued, with single spaces (pooled).
 
-    public int id;                  // Unique ticket ID, typically used for referencing tickets in backend systems.
-    public String date;            // Expiration date (format: "yyyy-MM-dd").
-    public String time;            // Expiration time (format: "HH:mm" or similar).
-    public String license;         // License plate number of the vehicle receiving the ticket.
-    public String location;        // Location where the ticket was issued.
-    public String image_base64;    // Base64-encoded image string (photo of the ticket).
+    // Display text, computed once when the ticket is created (by the parser or the repository,
+    // on a background thread) so that binding a row does no parsing or string building.
+    public final String expiryLabel;    // "Termin ważności: dd MMM yyyy, HH:mm"
+    public final String licenseLabel;   // "Nr rejestracyjny pojazdu: ..."
+    public final String locationLabel;  // "Lokalizacja: ..."
 
     /**
      * Full constructor used to instantiate a Ticket object with all its data.
      *
-     * @param id            Unique identifier for the ticket.
-     * @param date          Expiration date.
-     * @param time          Expiration time.
-     * @param license       Vehicle license plate number.
-     * @param location      Location of the offense.
-     * @param image_base64  Base64-encoded string of the ticket image.
+     * @param id           Unique identifier for the ticket.
+     * @param expiryMinute Expiry as an epoch minute.
+     * @param license      Vehicle license plate number.
+     * @param location     Location of the offense.
      */
-    public Ticket(int id, String date, String time, String license, String location, String image_base64) {
+    public Ticket(int id, int expiryMinute, String license, String location) {
         this.id = id;
-        this.date = date;
-        this.time = time;
-        this.license = license;
-        this.location = location;
-        this.image_base64 = image_base64;
+        this.expiryMinute = expiryMinute;
+        StringPool pool = StringPool.TICKETS;
+        this.license = pool.intern(normalizeSpaces(license).toUpperCase(Locale.ROOT));
+        this.location = pool.intern(normalizeSpaces(location));
+
+        this.expiryLabel = pool.intern(TicketFormatter.EXPIRY_LABEL + TicketFormatter.formatExpiry(expiryMinute));
+        this.licenseLabel = pool.intern(TicketFormatter.LICENSE_LABEL + this.license);
+        this.locationLabel = pool.intern(TicketFormatter.LOCATION_LABEL + this.location);
+    }
+
+    /**
+     * Creates a ticket from the fields sent by the backend.
+     *
+     * @param date Expiration date ("yyyy-MM-dd").
+     * @param time Expiration time ("HH:mm" or "HH:mm:ss").
+     */
+    public static Ticket fromBackend(int id, String date, String time, String license, String location) {
+        return new Ticket(id, TicketTime.toEpochMinute(date, time), license, location);
     }
+
+    /**
+     * Trims the value and collapses every run of whitespace into a single space.
+     * Unicode spaces (e.g. U+3000) count as whitespace at the ends too, not only those
+     * {@link String#trim()} removes.
+     */
+    static String normalizeSpaces(String value) {
+        if (value == null) return "";
+        int start = 0;
+        int end = value.length();
+        while (start < end && isSpace(value.charAt(start))) start++;
+        while (end > start && isSpace(value.charAt(end - 1))) end--;
+        // From here on the last character is not whitespace, so a whitespace character always has a successor
+        StringBuilder out = null;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                boolean spaceFollows = Character.isWhitespace(value.charAt(i + 1));
+                if (c != ' ' || spaceFollows) {
+                    // Irregular whitespace: switch to building a cleaned copy
+                    if (out == null) out = new StringBuilder(end - start).append(value, start, i);
+                    if (!spaceFollows) out.append(' ');
+                    continue;
+                }
+            }
+            if (out != null) out.append(c);
+        }
+        return out != null ? out.toString() : value.substring(start, end);
+    }
+
+    /**
+     * @return True for characters stripped from the ends: whitespace and the control
+     * characters {@link String#trim()} strips.
+     */
+    private static boolean isSpace(char c) {
+        return c <= ' ' || Character.isWhitespace(c);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeInt(expiryMinute);
+        dest.writeString(license);
+        dest.writeString(location);
+    }
+
+    public static final Creator<Ticket> CREATOR = new Creator<Ticket>() {
+        @Override
+        public Ticket createFromParcel(Parcel in) {
+            return new Ticket(in.readInt(), in.readInt(), in.readString(), in.readString());
+        }
+
+        @Override
+        public Ticket[] newArray(int size) {
+            return new Ticket[size];
+        }
+    };
 }
@@ -1,96 +1,276 @@
 package com.example.ARIUS_projekt;
 
-import android.annotation.SuppressLint;
-import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.*;
+import android.widget.ImageView;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Future;
 
 /**
- * TicketAdapter is a custom ArrayAdapter designed to display a list of Ticket objects in a ListView.
- * It uses the ViewHolder pattern to optimize performance.
+ * TicketAdapter is a RecyclerView adapter displaying {@link TicketRows}: rows are bound straight
+ * from the columnar table, and a {@link Ticket} object is only created when a row is clicked.
+ * Item IDs are stable (the ticket's backend ID), and the list is updated through
+ * {@link TicketListDiff}s, so only inserted, removed or changed rows are touched and
+ * RecyclerView can animate them. Changed rows are rebound with a payload, which reuses
+ * the row's current view holder instead of creating a new one for a cross-fade.
+ * <p>
+ * Each row also shows a live countdown to its expiry. The adapter tracks which rows are
+ * attached to the window, and {@link #tickCountdowns} (driven by a {@link CountdownTicker})
+ * rewrites only their countdown text; nothing else is rebound.
+ * <p>
+ * Rows show the ticket's thumbnail, loaded asynchronously through the thumbnail
+ * {@link TicketImageCache}. A row's load is cancelled when the row is bound to another
+ * ticket or recycled, so a late result never lands in a row that shows a different ticket.
+ * A row releases its thumbnail to the cache when it is rebound or recycled, so the bitmap's
+ * memory can be reused by later decodes; detaching the adapter recycles (releases) every row.
  */
-public class TicketAdapter extends ArrayAdapter<Ticket> {
+public class TicketAdapter extends RecyclerView.Adapter<TicketAdapter.ViewHolder> {
+
+    private static final String TAG = "TicketAdapter";
+
+    // Payload marking a row whose ticket data changed (same ticket ID)
+    static final Object PAYLOAD_TICKET_CHANGED = new Object();
+
+    // Thumbnail ticket ID of a row that shows no ticket's thumbnail
+    private static final int NO_TICKET = -1;
+
+    /**
+     * Receives clicks on a ticket row.
+     */
+    public interface OnTicketClickListener {
+        void onTicketClick(Ticket ticket);
+    }
+
+    private TicketRows rows = TicketRows.EMPTY;
+    private final ArrayList<ViewHolder> attached = new ArrayList<>(); // Rows currently on screen
+    private final OnTicketClickListener clickListener;
+    private final TicketImageCache thumbnails;
+    private int thumbnailSize; // Size of the thumbnail view in pixels, read from the first row
 
     /**
      * Constructor for the TicketAdapter.
-     * @param context The current context (e.g., an Activity or Application context).
-     * @param tickets A list of Ticket objects to be displayed in the ListView.
+     * @param clickListener Called when the user taps a row.
+     * @param thumbnails    Cache the row thumbnails are loaded from.
      */
-    public TicketAdapter(@NonNull Context context, @NonNull List<Ticket> tickets) {
-        // Call the superclass constructor.
-        // '0' indicates that we will provide our own layout inside getView().
-        super(context, 0, tickets);
+    public TicketAdapter(@NonNull OnTicketClickListener clickListener, @NonNull TicketImageCache thumbnails) {
+        this.clickListener = clickListener;
+        this.thumbnails = thumbnails;
+        setHasStableIds(true);
     }
 
     /**
-     * Returns the view for an item at the specified position in the list.
-     * Implements the ViewHolder pattern to reuse views and reduce calls to findViewById().
+     * Replaces the displayed tickets, notifying RecyclerView only about the ranges in the diff.
      *
-     * @param position The position of the item in the data set.
-     * @param convertView The recycled view, if available.
-     * @param parent The parent view group (typically the ListView).
-     * @return The view corresponding to the data at the specified position.
+     * @param newRows The tickets to display.
+     * @param diff    Operations turning the currently displayed rows into {@code newRows}.
      */
-    @SuppressLint("SetTextI18n")
+    public void submit(@NonNull TicketRows newRows, @NonNull TicketListDiff diff) {
+        rows = newRows;
+        diff.dispatchTo(new TicketListDiff.Callback() {
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                notifyItemRangeChanged(position, count, PAYLOAD_TICKET_CHANGED);
+            }
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return rows.id(position);
+    }
+
     @NonNull
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        ViewHolder holder;
-
-        if (convertView == null) {
-            convertView = LayoutInflater.from(getContext()).inflate(R.layout.single_row, parent, false);
-            holder = new ViewHolder();
-            holder.textDateTime = convertView.findViewById(R.id.textDateTime);
-            holder.textLicense = convertView.findViewById(R.id.textLicense);
-            holder.textLocation = convertView.findViewById(R.id.textLocation);
-            convertView.setTag(holder);
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.single_row, parent, false);
+        if (thumbnailSize == 0) {
+            thumbnailSize = parent.getResources().getDimensionPixelSize(R.dimen.ticket_thumbnail_size);
+        }
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) clickListener.onTicketClick(rows.ticket(position));
+        });
+        return holder;
+    }
+
+    /**
+     * Refreshes the countdown text of the rows on screen.
+     *
+     * @param nowMillis Current time, shared by all rows of one tick.
+     */
+    public void tickCountdowns(long nowMillis) {
+        for (int i = 0; i < attached.size(); i++) {
+            bindCountdown(attached.get(i), nowMillis);
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull ViewHolder holder) {
+        attached.add(holder);
+        bindCountdown(holder, System.currentTimeMillis()); // May come back from the cache with old text
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull ViewHolder holder) {
+        attached.remove(holder);
+    }
+
+    /**
+     * Stops the row's thumbnail load and releases its bitmap to the cache.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        cancelThumbnail(holder);
+        holder.thumbnailTicketId = NO_TICKET;
+        showThumbnail(holder, null);
+    }
+
+    /**
+     * Partial rebind for rows whose ticket changed: only the text is refreshed
+     * (the thumbnail belongs to the ticket ID, which did not change).
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_TICKET_CHANGED)) {
+            bindText(holder, position);
         } else {
-            holder = (ViewHolder) convertView.getTag();
+            onBindViewHolder(holder, position);
         }
+    }
 
-        Ticket ticket = getItem(position);
-        if (ticket == null) return convertView;
-
-        // NEW: Format date and combine with time
-        String formattedDateTime = ticket.date + ", " + ticket.time;
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date parsedDate = inputFormat.parse(ticket.date);
-            if (parsedDate != null) {
-                String datePart = new SimpleDateFormat("dd MMM yyyy", Locale.getDefault()).format(parsedDate);
-                formattedDateTime = datePart + ", " + ticket.time;
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        bindText(holder, position);
+        bindThumbnail(holder, position);
+    }
+
+    /**
+     * Populates the row's text views with the labels precomputed in the table.
+     */
+    private void bindText(ViewHolder holder, int position) {
+        holder.textDateTime.setText(rows.expiryLabel(position));
+        holder.textLicense.setText(rows.licenseLabel(position));
+        holder.textLocation.setText(rows.locationLabel(position));
+
+        int expiryMinute = rows.expiryMinute(position);
+        holder.expiresAtMillis = expiryMinute != TicketTime.INVALID
+                ? TicketTime.toMillis(expiryMinute)
+                : TicketFormatter.UNKNOWN_MILLIS;
+        bindCountdown(holder, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts loading the row's thumbnail, unless the row already shows (or is loading) it.
+     * The previous ticket's load is cancelled and its thumbnail cleared right away.
+     */
+    private void bindThumbnail(ViewHolder holder, int position) {
+        int ticketId = rows.id(position);
+        if (holder.thumbnailTicketId == ticketId) return;
+
+        cancelThumbnail(holder);
+        holder.thumbnailTicketId = ticketId;
+        showThumbnail(holder, null);
+        // A thumbnail already in memory is delivered before load() returns
+        holder.thumbnailLoad = thumbnails.load(ticketId, thumbnailSize, thumbnailSize, new ApiClient.Callback<Bitmap>() {
+            @Override
+            public void onSuccess(Bitmap bitmap) {
+                if (holder.thumbnailTicketId != ticketId) { // Row was rebound meanwhile
+                    thumbnails.release(bitmap);
+                    return;
+                }
+                holder.thumbnailLoad = null;
+                showThumbnail(holder, bitmap); // Null for tickets without a photo
             }
-        } catch (ParseException e) {
-            e.printStackTrace(); // log failure but fall back to raw strings
-        }
 
-        // Populate the view
-        holder.textDateTime.setText("Termin ważności: " + formattedDateTime);
-        holder.textLicense.setText("Nr rejestracyjny pojazdu: " + ticket.license);
-        holder.textLocation.setText("Lokalizacja: " + ticket.location);
+            @Override
+            public void onFailure(Exception e) {
+                if (holder.thumbnailTicketId != ticketId) return;
+                holder.thumbnailLoad = null;
+                // The row stays usable without its thumbnail; a later bind retries
+                holder.thumbnailTicketId = NO_TICKET;
+                Log.w(TAG, "Could not load thumbnail of ticket " + ticketId, e);
+            }
+        });
+    }
 
-        return convertView;
+    /**
+     * Puts a bitmap delivered by the cache into the row and releases the row's previous one.
+     */
+    private void showThumbnail(ViewHolder holder, Bitmap bitmap) {
+        Bitmap previous = holder.thumbnail;
+        holder.thumbnail = bitmap;
+        holder.imageThumbnail.setImageBitmap(bitmap); // The view no longer draws the previous bitmap
+        thumbnails.release(previous);
+    }
+
+    private static void cancelThumbnail(ViewHolder holder) {
+        if (holder.thumbnailLoad != null) {
+            holder.thumbnailLoad.cancel(true);
+            holder.thumbnailLoad = null;
+        }
+    }
+
+    /**
+     * Sets the countdown text, skipping the TextView when the text did not change
+     * (e.g. a ticket that has already expired).
+     */
+    private static void bindCountdown(ViewHolder holder, long nowMillis) {
+        String text = TicketFormatter.formatCountdown(holder.expiresAtMillis, nowMillis);
+        if (text.equals(holder.countdownText)) return;
+        holder.countdownText = text;
+        holder.textCountdown.setText(text);
     }
 
     /**
-     * Static inner class to cache the views inside each row item.
+     * Caches the views inside each row item.
      * This avoids repeated calls to findViewById() and improves performance.
      */
-    static class ViewHolder {
-        TextView textDateTime;
-        TextView textLicense;
-        TextView textLocation;
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textDateTime;
+        final TextView textLicense;
+        final TextView textLocation;
+        final TextView textCountdown;
+        final ImageView imageThumbnail;
+
+        long expiresAtMillis = TicketFormatter.UNKNOWN_MILLIS; // Expiry of the bound ticket
+        String countdownText;                                    // Text currently shown
+        int thumbnailTicketId = NO_TICKET;                       // Ticket whose thumbnail is shown or loading
+        Future<Bitmap> thumbnailLoad;                            // Running thumbnail load, if any
+        Bitmap thumbnail;                                        // Bitmap shown, to release to the cache
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textDateTime = itemView.findViewById(R.id.textDateTime);
+            textLicense = itemView.findViewById(R.id.textLicense);
+            textLocation = itemView.findViewById(R.id.textLocation);
+            textCountdown = itemView.findViewById(R.id.textCountdown);
+            imageThumbnail = itemView.findViewById(R.id.imageThumbnail);
+        }
     }
 
 }
@@ -0,0 +1,56 @@
+package com.example.ARIUS_projekt;
+
+import java.util.List;
+
+/**
+ * Source of tickets for the list screen.
+ * Hides how tickets are fetched (page by page, from cache, ...) behind a simple
+ * "load the first batch / load the next batch" contract.
+ * All methods are called, and all callbacks delivered, on the main thread.
+ */
+public interface TicketDataSource {
+
+    /**
+     * Receives batches of tickets as they arrive.
+     */
+    interface Callback {
+        /**
+         * @param tickets The newly loaded tickets.
+         * @param reset   True if the batch replaces everything loaded so far
+         *                (first page of a fresh load), false if it should be appended.
+         */
+        void onTicketsLoaded(List<Ticket> tickets, boolean reset);
+
+        /**
+         * Called when previously delivered tickets were deleted (e.g. reported by a sync).
+         *
+         * @param ticketIds IDs of the deleted tickets.
+         */
+        default void onTicketsRemoved(List<Integer> ticketIds) {
+        }
+
+        void onError(Exception e);
+    }
+
+    /**
+     * Starts loading from the beginning, discarding any load in progress.
+     */
+    void loadInitial(Callback callback);
+
+    /**
+     * Loads the next batch, if there is one and nothing is being loaded already.
+     */
+    void loadMore(Callback callback);
+
+    /**
+     * @return True if {@link #loadMore} can still return tickets.
+     */
+    boolean hasMore();
+
+    boolean isLoading();
+
+    /**
+     * Cancels any load in progress; its callback will not be invoked.
+     */
+    void cancel();
+}
@@ -0,0 +1,51 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * SQLite schema of the on-device ticket store used by {@link TicketRepository}.
+ * <p>
+ * {@code tickets} mirrors the backend's ticket list (without images) keyed by the backend ID,
+ * with indexes on the expiry (epoch minute), license plate and location.
+ * {@code sync_state} keeps small key/value pairs such as the delta sync token.
+ */
+public class TicketDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "tickets.db";
+    // 2: expiry stored as a single epoch-minute column instead of date and time strings
+    private static final int DATABASE_VERSION = 2;
+
+    static final String TABLE_TICKETS = "tickets";
+    static final String TABLE_SYNC_STATE = "sync_state";
+
+    public TicketDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true); // Lets the list read while a sync is writing
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_TICKETS + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "expiry_minute INTEGER NOT NULL, "
+                + "license TEXT NOT NULL, "
+                + "location TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_tickets_expiry ON " + TABLE_TICKETS + " (expiry_minute)");
+        db.execSQL("CREATE INDEX idx_tickets_license ON " + TABLE_TICKETS + " (license)");
+        db.execSQL("CREATE INDEX idx_tickets_location ON " + TABLE_TICKETS + " (location)");
+
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + "key TEXT PRIMARY KEY, "
+                + "value TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The store is only a cache of the backend: rebuild it and let the next sync refill it
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TICKETS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        onCreate(db);
+    }
+}
@@ -3,24 +3,18 @@ package com.example.ARIUS_projekt;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.util.Base64;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.MenuItem;
 import android.widget.*;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import org.json.JSONObject;
-
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.concurrent.Future;
 
 /**
  * Activity responsible for displaying full details of a specific parking ticket,
@@ -29,11 +23,15 @@ import java.util.Locale;
 public class TicketDetailsActivity extends AppCompatActivity {
 
     private static final String TAG = "TicketDetailsActivity"; // Logging tag for debug purposes
+    private final Handler mainHandler = new Handler(Looper.getMainLooper()); // The image cache is used from the main thread
     private int ticketId; // ID of the ticket retrieved from intent extras
+    private boolean ticketShown; // True once any version of the ticket is on screen
 
     // UI references
     private TextView textDateTime, textLicense, textLocation, imagePlaceholderText;
     private ImageView ticketImage;
+    private Bitmap shownImage; // Bitmap in ticketImage, released to the cache when replaced or destroyed
+    private Future<Bitmap> imageLoad; // Running image load, if any
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -62,7 +60,12 @@ public class TicketDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        // Begin async ticket detail fetch
+        // Show the ticket passed by the list at once (FetchTicketTask falls back to the
+        // locally stored copy). The image and the current metadata do not depend on each
+        // other, so both are requested right away and load in parallel.
+        Ticket known = getIntent().getParcelableExtra("ticket");
+        if (known != null && known.id == ticketId) populateTicketUI(known);
+        fetchImageAsync(ticketId);
         new FetchTicketTask().execute(ticketId);
 
         // Set delete button action
@@ -70,39 +73,54 @@ public class TicketDetailsActivity extends AppCompatActivity {
     }
 
     /**
-     * AsyncTask for downloading and parsing ticket details.
-     * Runs in the background and updates UI upon completion.
+     * Gives the shown image back to the cache, so a later decode can reuse its memory.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (imageLoad != null) imageLoad.cancel(true);
+        showImage(null);
+    }
+
+    /**
+     * AsyncTask for loading ticket details.
+     * Publishes the copy stored in {@link TicketRepository} first (if the list did not pass the ticket
+     * along), then downloads the current version and updates the UI upon completion.
+     * The image is loaded independently (see {@link #fetchImageAsync}).
      */
-    private class FetchTicketTask extends AsyncTask<Integer, Void, JSONObject> {
+    private class FetchTicketTask extends AsyncTask<Integer, Ticket, Ticket> {
+        private boolean shownLocal; // True if a copy was already on screen when the task started
+
+        @Override
+        protected void onPreExecute() {
+            shownLocal = ticketShown;
+        }
+
         @Override
-        protected JSONObject doInBackground(Integer... params) {
+        protected Ticket doInBackground(Integer... params) {
             int id = params[0];
-            String token = getSharedPreferences("user", MODE_PRIVATE).getString("token", "");
+            if (!shownLocal) {
+                try {
+                    Ticket stored = TicketRepository.getInstance(TicketDetailsActivity.this).get(id);
+                    if (stored != null) publishProgress(stored);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to read stored ticket", e);
+                }
+            }
 
             try {
                 // Authenticated GET request to fetch ticket metadata
-                HttpURLConnection conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/ticket/" + id,
-                        "GET", 5000, 30000, token
-                );
-
-                int code = conn.getResponseCode();
-                InputStream input = (code < 400) ? conn.getInputStream() : conn.getErrorStream();
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) response.append(line);
-                reader.close();
-                conn.disconnect();
+                Ticket result = ApiClient.getInstance(TicketDetailsActivity.this).execute(
+                        ApiClient.Request.get(ApiClient.Endpoint.TICKET, id),
+                        response -> {
+                            if (response.code() == 200) {
+                                return TicketJsonParser.parseTicket(response.body());
+                            }
+                            Log.e(TAG, "Failed to fetch ticket: " + response.readString());
+                            return null;
+                        });
 
-                if (code == 200) {
-                    // Ticket metadata fetched, now fetch image asynchronously
-                    fetchImageAsync(id);
-                    return new JSONObject(response.toString());
-                } else {
-                    Log.e(TAG, "Failed to fetch ticket: " + response);
-                }
+                if (result != null) return result;
             } catch (Exception e) {
                 Log.e(TAG, "Exception in FetchTicketTask", e);
             }
@@ -111,10 +129,16 @@ public class TicketDetailsActivity extends AppCompatActivity {
         }
 
         @Override
-        protected void onPostExecute(JSONObject result) {
+        protected void onProgressUpdate(Ticket... stored) {
+            populateTicketUI(stored[0]);
+        }
+
+        @Override
+        protected void onPostExecute(Ticket result) {
             if (result != null) {
                 populateTicketUI(result); // Display ticket info
-            } else {
+                TicketSyncEngine.getInstance(TicketDetailsActivity.this).put(result);
+            } else if (!ticketShown) {
                 GeneralUtils.showToast(TicketDetailsActivity.this, "Błąd podczas wczytywania danych");
             }
         }
@@ -130,15 +154,12 @@ public class TicketDetailsActivity extends AppCompatActivity {
         @Override
         protected Boolean doInBackground(Integer... params) {
             this.ticketId = params[0];
-            String token = getSharedPreferences("user", MODE_PRIVATE).getString("token", "");
 
             try {
-                HttpURLConnection conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/ticket/" + ticketId,
-                        "DELETE", 5000, 30000, token
+                int code = ApiClient.getInstance(TicketDetailsActivity.this).execute(
+                        ApiClient.Request.delete(ApiClient.Endpoint.TICKET, ticketId),
+                        ApiClient.Response::code
                 );
-                int code = conn.getResponseCode();
-                conn.disconnect();
                 return code == 200 || code == 204; // Server returned OK or No Content
             } catch (Exception e) {
                 Log.e(TAG, "Exception in DeleteTicketTask", e);
@@ -162,91 +183,71 @@ public class TicketDetailsActivity extends AppCompatActivity {
     }
 
     /**
-     * Fetches the ticket's image asynchronously using built-in thread pool.
-     * Parses Base64 encoded image into Bitmap.
+     * Loads the ticket's image asynchronously through the shared {@link TicketImageCache}
+     * (memory, then disk, then the backend), decoded no larger than the image view shows it:
+     * the view's width, and at most the screen height (its height wraps the image).
      */
     private void fetchImageAsync(int id) {
-        AsyncTask.execute(() -> {
-            String token = getSharedPreferences("user", MODE_PRIVATE).getString("token", "");
-            try {
-                HttpURLConnection conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/ticket/" + id + "/image",
-                        "GET", 5000, 30000, token
-                );
-
-                int code = conn.getResponseCode();
-                InputStream input = (code < 400) ? conn.getInputStream() : conn.getErrorStream();
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) sb.append(line);
-                reader.close();
-                conn.disconnect();
+        mainHandler.post(() -> {
+            DisplayMetrics screen = getResources().getDisplayMetrics();
+            int width = ticketImage.getWidth() > 0 ? ticketImage.getWidth() : screen.widthPixels;
+            loadImage(id, width, screen.heightPixels);
+        });
+    }
 
-                if (code == 200) {
-                    JSONObject obj = new JSONObject(sb.toString());
-                    String imageBase64 = obj.optString("image_base64", "");
-                    if (!imageBase64.isEmpty()) {
-                        byte[] imageBytes = Base64.decode(imageBase64, Base64.DEFAULT);
-                        Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-                        runOnUiThread(() -> {
+    /**
+     * Requests the image at the given size and shows it, or the placeholder if there is none.
+     */
+    private void loadImage(int id, int width, int height) {
+        if (isDestroyed()) return;
+        imageLoad = TicketImageCache.photos(this).load(
+                id, width, height,
+                new ApiClient.Callback<Bitmap>() {
+                    @Override
+                    public void onSuccess(Bitmap bitmap) {
+                        if (isDestroyed()) { // Arrived after onDestroy()
+                            TicketImageCache.photos(TicketDetailsActivity.this).release(bitmap);
+                            return;
+                        }
+                        showImage(bitmap);
+                        if (bitmap != null) {
                             ticketImage.setVisibility(ImageView.VISIBLE);
                             imagePlaceholderText.setVisibility(TextView.GONE);
-                            ticketImage.setImageBitmap(bitmap);
-                        });
-                    } else {
-                        runOnUiThread(() -> {
+                        } else {
                             ticketImage.setVisibility(ImageView.GONE);
                             imagePlaceholderText.setVisibility(TextView.VISIBLE);
-                        });
+                        }
                     }
-                } else {
-                    runOnUiThread(() -> {
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e(TAG, "Error fetching image", e);
                         ticketImage.setVisibility(ImageView.GONE);
                         imagePlaceholderText.setVisibility(TextView.VISIBLE);
-                    });
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching image", e);
-                runOnUiThread(() -> {
-                    ticketImage.setVisibility(ImageView.GONE);
-                    imagePlaceholderText.setVisibility(TextView.VISIBLE);
+                    }
                 });
-            }
-        });
     }
 
     /**
-     * Updates UI views with values retrieved from ticket JSON.
+     * Puts a bitmap delivered by the cache into the image view and releases the previous one.
      */
-    @SuppressLint("SetTextI18n")
-    private void populateTicketUI(JSONObject obj) {
-        try {
-            String date = obj.getString("date");
-            String time = obj.getString("time");
-            String license = obj.getString("vehicle_number");
-            String location = obj.getString("location");
-
-            // Format date into localized human-readable format
-            String formattedDate = date + ", " + time;
-            try {
-                Date parsed = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).parse(date);
-                if (parsed != null) {
-                    formattedDate = new SimpleDateFormat("dd MMM yyyy", Locale.getDefault()).format(parsed) + ", " + time;
-                }
-            } catch (Exception e) {
-                Log.w(TAG, "Date parse failed: " + date);
-            }
+    private void showImage(Bitmap bitmap) {
+        Bitmap previous = shownImage;
+        shownImage = bitmap;
+        ticketImage.setImageBitmap(bitmap); // The view no longer draws the previous bitmap
+        TicketImageCache.photos(this).release(previous); // Also when it is the same bitmap: each delivery is counted
+    }
 
-            // Set data into TextViews
-            textDateTime.setText("Termin ważności: " + formattedDate);
-            textLicense.setText("Numer rejestracyjny pojazdu: " + license);
-            textLocation.setText("Lokalizacja: " + location);
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing ticket JSON", e);
-            GeneralUtils.showToast(this, "Niepoprawne dane biletu");
-        }
+    /**
+     * Updates UI views with the ticket's metadata.
+     */
+    @SuppressLint("SetTextI18n")
+    private void populateTicketUI(Ticket ticket) {
+        // The expiry is already formatted by the ticket (see TicketFormatter)
+        textDateTime.setText(ticket.expiryLabel);
+        textLicense.setText("Numer rejestracyjny pojazdu: " + ticket.license);
+        textLocation.setText(ticket.locationLabel);
+        ticketShown = true;
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.example.ARIUS_projekt;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Receives the alarm armed by {@link TicketExpiryScheduler} and shows a notification for
+ * every ticket that has just expired. Also runs after a reboot, which clears all alarms:
+ * expiries missed while the device was off are reported and the next alarm is armed again.
+ */
+public class TicketExpiryReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "TicketExpiryReceiver";
+
+    // Tag of the expiry alerts, local and pushed: their IDs are ticket IDs, so the alert
+    // arriving second replaces the first, and neither replaces other notifications
+    static final String NOTIFICATION_TAG = "ticket_expiry";
+
+    // Zone the backend formats the expiry in, so both alerts quote the same time
+    private static final TimeZone ALERT_ZONE = TimeZone.getTimeZone("Europe/Warsaw");
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!TicketExpiryScheduler.ACTION_TICKET_EXPIRED.equals(action)
+                && !Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            return;
+        }
+
+        // The database must not be touched on the main thread; keep the receiver alive meanwhile
+        PendingResult result = goAsync();
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                List<Ticket> due = TicketExpiryScheduler.getInstance(appContext).takeDue();
+                for (Ticket ticket : due) notifyExpired(appContext, ticket);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to process ticket expiry alarm", e);
+            } finally {
+                result.finish();
+            }
+        }, TAG).start();
+    }
+
+    /**
+     * Shows the same alert the backend pushes, one notification per ticket. Like the backend,
+     * the stored expiry is read as UTC and quoted in Polish time.
+     */
+    private static void notifyExpired(Context context, Ticket ticket) {
+        Date expiry = new Date(ticket.expiryMinute * 60_000L);
+        MyFirebaseMessagingService.showNotification(context, NOTIFICATION_TAG,
+                "Przeterminowany bilet parkingowy",
+                "Bilet dla pojazdu " + ticket.license + " z lokalizacji " + ticket.location
+                        + " stracił ważność dnia " + format("yyyy-MM-dd", expiry)
+                        + " o " + format("HH:mm", expiry) + ".",
+                ticket.id);
+    }
+
+    private static String format(String pattern, Date date) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+        format.setTimeZone(ALERT_ZONE);
+        return format.format(date);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.ARIUS_projekt;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import java.util.List;
+
+/**
+ * On-device scheduler of ticket expiry alerts, complementing the backend's periodic
+ * {@code check_expired_tickets} sweep and its FCM push.
+ * <p>
+ * Only the single next expiry is ever armed with {@link AlarmManager}. The stored tickets
+ * in {@link TicketRepository} act as the priority queue: the next one is a lookup on the
+ * indexed {@code expiry_minute} column, so re-arming costs O(log n) no matter how many
+ * tickets are stored. {@link TicketSyncEngine} calls {@link #reschedule()} after every
+ * ticket write (page, delta, put, delete, logout), and the alarm is moved only if the
+ * next expiry actually changed. No polling is involved: when the alarm fires,
+ * {@link TicketExpiryReceiver} notifies every ticket that became due and arms the next one.
+ * <p>
+ * A watermark (stored next to the sync state) remembers the epoch minute up to which
+ * expiries have been handled. Tickets that expire while the alarm cannot fire (device off,
+ * delayed delivery) are therefore still reported, once, on the next run.
+ * <p>
+ * The alarm fires when the backend's sweep considers the ticket expired: it reads the stored
+ * date and time as UTC, not as the device-local wall-clock time shown in the list (see
+ * {@link TicketTime}). The local alert and the push for a ticket therefore arrive together,
+ * and whichever comes second replaces the first (see {@link TicketExpiryReceiver}).
+ * Watermarks are UTC epoch minutes as well.
+ * <p>
+ * All methods block on disk I/O and must be called from a background thread.
+ */
+public final class TicketExpiryScheduler {
+
+    private static final String TAG = "TicketExpiryScheduler";
+
+    static final String ACTION_TICKET_EXPIRED = "com.example.ARIUS_projekt.TICKET_EXPIRED";
+
+    // Marks "no alarm armed by this process yet"
+    private static final long NOT_ARMED = Long.MIN_VALUE;
+
+    private static volatile TicketExpiryScheduler instance;
+
+    private final Context context;
+    private final TicketRepository repository;
+    private final AlarmManager alarmManager;
+
+    private long armedAt = NOT_ARMED; // Trigger time of the armed alarm, 0 if none
+
+    private TicketExpiryScheduler(Context context) {
+        this.context = context;
+        this.repository = TicketRepository.getInstance(context);
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    /**
+     * Returns the process-wide scheduler instance.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketExpiryScheduler getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TicketExpiryScheduler.class) {
+                if (instance == null) {
+                    instance = new TicketExpiryScheduler(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Arms the alarm for the next unhandled expiry, or cancels it if there is none.
+     * Cheap enough to call after every change to the stored tickets.
+     */
+    @WorkerThread
+    public synchronized void reschedule() {
+        int watermark = readWatermark();
+        Ticket next = repository.getNextExpiring(watermark);
+        if (next == null) {
+            if (armedAt != 0) {
+                alarmManager.cancel(alarmIntent());
+                armedAt = 0;
+            }
+            return;
+        }
+
+        // An expiry that was missed (e.g. while the device was off) fires right away
+        long triggerAt = Math.max(next.expiryMinute * 60_000L, System.currentTimeMillis());
+        if (triggerAt == armedAt) return;
+        arm(triggerAt);
+        armedAt = triggerAt;
+    }
+
+    /**
+     * Handles an alarm: returns the tickets that became due since the last run, advances
+     * the watermark past them and arms the next alarm.
+     */
+    @WorkerThread
+    public synchronized List<Ticket> takeDue() {
+        int now = TicketTime.nowUtc();
+        List<Ticket> due = repository.getExpiring(readWatermark(), now);
+        repository.putState(TicketRepository.STATE_ALARM_WATERMARK, String.valueOf(now));
+        armedAt = NOT_ARMED; // The alarm that brought us here is spent
+        reschedule();
+        return due;
+    }
+
+    /**
+     * @return The epoch minute up to which expiries are handled. On the first run (or after
+     * logout) this starts at the current minute: tickets that had already expired are left
+     * to the backend's sweep.
+     */
+    private int readWatermark() {
+        String stored = repository.getState(TicketRepository.STATE_ALARM_WATERMARK);
+        if (stored != null) {
+            try {
+                return Integer.parseInt(stored);
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Ignoring malformed alarm watermark: " + stored);
+            }
+        }
+        int now = TicketTime.nowUtc();
+        repository.putState(TicketRepository.STATE_ALARM_WATERMARK, String.valueOf(now));
+        return now;
+    }
+
+    private void arm(long triggerAt) {
+        PendingIntent intent = alarmIntent();
+        // Exact alarms need the user's consent on Android 12+; fall back to a window alarm
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, intent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, intent);
+        }
+    }
+
+    /**
+     * The one PendingIntent used for every alarm, so arming again replaces the previous alarm.
+     */
+    private PendingIntent alarmIntent() {
+        Intent intent = new Intent(context, TicketExpiryReceiver.class).setAction(ACTION_TICKET_EXPIRED);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,516 @@
+package com.example.ARIUS_projekt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory index over the tickets shown by the list screen, answering the four filter
+ * fields without scanning every ticket.
+ * <p>
+ * Tickets are stored in a columnar {@link TicketTable}; fields are lower-cased once, when a
+ * ticket is added. License plate and location are
+ * indexed by all their 1-, 2- and 3-character substrings (n-gram postings); a query of up to
+ * three characters is a single posting lookup, a longer one intersects the postings of its
+ * trigrams and verifies only the surviving candidates. Dates and times are matched on the
+ * ticket's epoch-minute expiry: a sorted map from day to tickets and one bucket per minute of
+ * the day, so the values produced by the pickers ("yyyy-MM-dd", "HH:mm") are a single lookup.
+ * <p>
+ * All tickets with a known expiry are also kept in an expiry-ordered tree with O(log n) insert
+ * and delete. A query with an expiry range (e.g. "expiring in the next 2 hours") walks only
+ * the tickets inside the range, and its result is ordered by expiry instead of by position,
+ * which gives the "expiring next" view.
+ * <p>
+ * The engine also remembers its last query and result. When the next query only refines it
+ * (one more character typed, or a date/time picked where there was none), the previous hits are narrowed
+ * directly instead of consulting the indexes, so typing costs time proportional to the
+ * current hits. Relaxing or clearing a filter falls back to a full evaluation.
+ * <p>
+ * Tickets are addressed by their position, i.e. their row in the table; results without an
+ * expiry range are ascending position arrays, so they keep the order of the underlying list.
+ * A newer version of a known ticket replaces its row and is re-indexed in place, so it keeps
+ * its position. Removed tickets are only hidden until they outnumber the shown ones; the
+ * table and indexes are then rebuilt without them.
+ * Not thread-safe.
+ */
+public class TicketFilterEngine {
+
+    // Longest n-gram kept in the postings; longer queries are answered from their trigrams
+    private static final int MAX_GRAM = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    // Hidden rows tolerated before compaction, regardless of the number of shown tickets
+    private static final int MIN_COMPACT_REMOVED = 64;
+
+    private final TicketTable.Builder table = new TicketTable.Builder();
+    private final HashMap<Integer, Integer> positionById = new HashMap<>();
+    private final BitSet removed = new BitSet();                    // Positions no longer shown
+
+    private final HashMap<Long, IntList> licenseGrams = new HashMap<>();
+    private final HashMap<Long, IntList> locationGrams = new HashMap<>();
+    private final TreeMap<Integer, IntList> days = new TreeMap<>();   // Epoch day -> positions
+    private final IntList[] minutes = new IntList[TicketTime.MINUTES_PER_DAY]; // Minute of day -> positions
+    private final TreeSet<Long> byExpiry = new TreeSet<>();               // expiryKey(), earliest first
+
+    // Last evaluated query and its result, reused when the next query refines it
+    private Query lastQuery;
+    private int[] lastResult;
+
+    /**
+     * Replaces all indexed tickets.
+     */
+    public void setTickets(Collection<Ticket> newTickets) {
+        table.clear();
+        positionById.clear();
+        removed.clear();
+        licenseGrams.clear();
+        locationGrams.clear();
+        days.clear();
+        Arrays.fill(minutes, null);
+        byExpiry.clear();
+        lastQuery = null;
+        lastResult = null;
+        addTickets(newTickets);
+    }
+
+    /**
+     * Appends tickets after the ones already indexed. A ticket whose ID is already known
+     * replaces the previous version at its current position.
+     */
+    public void addTickets(Collection<Ticket> newTickets) {
+        int firstNew = table.size;
+        boolean updated = false;
+        for (Ticket ticket : newTickets) {
+            Integer known = positionById.get(ticket.id);
+            if (known != null) {
+                unindex(known);
+                table.set(known, ticket);
+                index(known);
+                updated = true;
+            } else {
+                int position = table.append(ticket);
+                positionById.put(ticket.id, position);
+                index(position);
+            }
+        }
+
+        // Keep the cached result valid: appended tickets can only add hits at the end,
+        // unless the result is ordered by expiry or an existing ticket changed
+        if (lastQuery != null && (lastQuery.byExpiry || updated)) {
+            lastQuery = null;
+            lastResult = null;
+        } else if (lastQuery != null) {
+            int[] extended = Arrays.copyOf(lastResult, lastResult.length + table.size - firstNew);
+            int count = lastResult.length;
+            for (int position = firstNew; position < table.size; position++) {
+                if (matches(position, lastQuery)) extended[count++] = position;
+            }
+            lastResult = Arrays.copyOf(extended, count);
+        }
+    }
+
+    /**
+     * Hides a ticket from all further results.
+     *
+     * @return True if the ticket was indexed.
+     */
+    public boolean remove(int ticketId) {
+        Integer position = positionById.remove(ticketId);
+        if (position == null) return false;
+        removed.set(position);
+        int expiry = table.expiries[position];
+        if (expiry != TicketTime.INVALID) byExpiry.remove(expiryKey(expiry, position));
+
+        int hidden = table.size - positionById.size();
+        if (hidden > MIN_COMPACT_REMOVED && hidden > positionById.size()) compact();
+        return true;
+    }
+
+    /**
+     * Rebuilds the table and indexes from the shown tickets, dropping hidden rows.
+     * Positions change, so the cached result is dropped as well.
+     */
+    private void compact() {
+        TicketTable current = table.build();
+        ArrayList<Ticket> shown = new ArrayList<>(positionById.size());
+        for (int position = 0; position < current.size; position++) {
+            if (!removed.get(position)) shown.add(current.ticket(position));
+        }
+        setTickets(shown);
+    }
+
+    /**
+     * Adds the ticket at a position to every index.
+     */
+    private void index(int position) {
+        indexGrams(licenseGrams, table.licenseKeys[position], position);
+        indexGrams(locationGrams, table.locationKeys[position], position);
+        int expiry = table.expiries[position];
+        if (expiry != TicketTime.INVALID) {
+            postings(days, TicketTime.epochDay(expiry)).insert(position);
+            int minute = TicketTime.minuteOfDay(expiry);
+            if (minutes[minute] == null) minutes[minute] = new IntList();
+            minutes[minute].insert(position);
+            byExpiry.add(expiryKey(expiry, position));
+        }
+    }
+
+    /**
+     * Removes the ticket at a position from every index, before its row is replaced.
+     */
+    private void unindex(int position) {
+        unindexGrams(licenseGrams, table.licenseKeys[position], position);
+        unindexGrams(locationGrams, table.locationKeys[position], position);
+        int expiry = table.expiries[position];
+        if (expiry != TicketTime.INVALID) {
+            int day = TicketTime.epochDay(expiry);
+            IntList dayPositions = days.get(day);
+            dayPositions.remove(position);
+            if (dayPositions.size == 0) days.remove(day);
+            minutes[TicketTime.minuteOfDay(expiry)].remove(position);
+            byExpiry.remove(expiryKey(expiry, position));
+        }
+    }
+
+    /**
+     * @return A snapshot of the table the positions returned by {@link #filter} refer to.
+     * Later changes to the engine do not affect it.
+     */
+    public TicketTable snapshot() {
+        return table.build();
+    }
+
+    /**
+     * @return The number of tickets currently shown when no filter is set.
+     */
+    public int size() {
+        return positionById.size();
+    }
+
+    /**
+     * Evaluates a query, narrowing the previous result when the query refines the last one.
+     *
+     * @return Positions of all matching tickets, ascending or, for a query with an expiry
+     * range, by expiry. The array must not be modified.
+     */
+    public int[] filter(Query query) {
+        int[] result = lastQuery != null && query.refines(lastQuery)
+                ? narrow(lastResult, query)
+                : evaluate(query);
+        lastQuery = query;
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Keeps the positions of a previous result that still match (and are still shown).
+     */
+    private int[] narrow(int[] previous, Query query) {
+        int[] out = new int[previous.length];
+        int count = 0;
+        for (int position : previous) {
+            if (!removed.get(position) && matches(position, query)) out[count++] = position;
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Checks a single ticket against a query using its pre-normalized fields.
+     */
+    private boolean matches(int position, Query query) {
+        int expiry = table.expiries[position];
+        boolean unknown = expiry == TicketTime.INVALID;
+        return (query.day == Query.ANY || !unknown && TicketTime.epochDay(expiry) == query.day)
+                && (query.minute == Query.ANY || !unknown && TicketTime.minuteOfDay(expiry) == query.minute)
+                && (query.expiresFrom == Query.ANY || !unknown && expiry >= query.expiresFrom)
+                && (query.expiresBefore == Query.ANY || !unknown && expiry < query.expiresBefore)
+                && table.licenseKeys[position].contains(query.license)
+                && table.locationKeys[position].contains(query.location);
+    }
+
+    /**
+     * Evaluates a query from scratch against the indexes.
+     */
+    private int[] evaluate(Query query) {
+        if (query.byExpiry) return expiring(query);
+
+        int[] result = null; // null means "every ticket" until a filter narrows it
+
+        if (query.day != Query.ANY) result = intersect(result, positions(days.get(query.day)));
+        if (query.minute != Query.ANY) {
+            result = intersect(result, positions(query.minute >= 0 && query.minute < minutes.length
+                    ? minutes[query.minute] : null));
+        }
+        if (!query.license.isEmpty()) {
+            result = intersect(result, substring(licenseGrams, table.licenseKeys, query.license));
+        }
+        if (!query.location.isEmpty()) {
+            result = intersect(result, substring(locationGrams, table.locationKeys, query.location));
+        }
+
+        return withoutRemoved(result);
+    }
+
+    /**
+     * Walks the tickets inside the query's expiry range, earliest first, keeping the ones
+     * matching the other fields. Costs O(log n) plus the size of the range.
+     */
+    private int[] expiring(Query query) {
+        long from = query.expiresFrom == Query.ANY ? Long.MIN_VALUE : expiryKey(query.expiresFrom, 0);
+        long to = query.expiresBefore == Query.ANY ? Long.MAX_VALUE : expiryKey(query.expiresBefore, 0);
+        if (from >= to) return EMPTY;
+
+        IntList out = new IntList();
+        for (long key : byExpiry.subSet(from, to)) {
+            int position = (int) key;
+            if (matches(position, query)) out.add(position);
+        }
+        return out.toArray();
+    }
+
+    /**
+     * Orders tickets by expiry, then by position (positions are non-negative ints).
+     */
+    private static long expiryKey(int expiryMinute, int position) {
+        return (long) expiryMinute << 32 | position;
+    }
+
+    private static int[] positions(IntList list) {
+        return list != null ? list.toArray() : EMPTY;
+    }
+
+    /**
+     * Positions of all tickets whose value contains the (lower-cased) query.
+     */
+    private static int[] substring(HashMap<Long, IntList> grams, String[] values, String query) {
+        int length = query.length();
+        if (length <= MAX_GRAM) {
+            // Short queries are n-grams themselves: the postings are the exact answer
+            IntList list = grams.get(gramKey(query, 0, length));
+            return list != null ? list.toArray() : EMPTY;
+        }
+
+        IntList[] lists = new IntList[length - MAX_GRAM + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = grams.get(gramKey(query, i, MAX_GRAM));
+            if (lists[i] == null) return EMPTY; // A trigram no ticket contains
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = lists[0].toArray();
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i].data, lists[i].size);
+        }
+
+        // Sharing every trigram does not guarantee the trigrams are adjacent: verify
+        int count = 0;
+        for (int position : candidates) {
+            if (values[position].contains(query)) candidates[count++] = position;
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    private static int[] intersect(int[] current, int[] next) {
+        return current == null ? next : intersect(current, next, next.length);
+    }
+
+    /**
+     * Intersects two ascending position arrays.
+     */
+    private static int[] intersect(int[] a, int[] b, int bLength) {
+        int[] out = new int[Math.min(a.length, bLength)];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    private int[] withoutRemoved(int[] positions) {
+        if (positions == null) {
+            positions = new int[table.size];
+            for (int i = 0; i < positions.length; i++) positions[i] = i;
+        }
+        if (removed.isEmpty()) return positions;
+
+        int count = 0;
+        for (int position : positions) {
+            if (!removed.get(position)) positions[count++] = position;
+        }
+        return count == positions.length ? positions : Arrays.copyOf(positions, count);
+    }
+
+    private static void indexGrams(HashMap<Long, IntList> grams, String value, int position) {
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int start = 0; start + length <= value.length(); start++) {
+                IntList list = grams.get(gramKey(value, start, length));
+                if (list == null) {
+                    list = new IntList();
+                    grams.put(gramKey(value, start, length), list);
+                }
+                list.insert(position); // A gram repeated within one value is posted once
+            }
+        }
+    }
+
+    private static void unindexGrams(HashMap<Long, IntList> grams, String value, int position) {
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int start = 0; start + length <= value.length(); start++) {
+                long key = gramKey(value, start, length);
+                IntList list = grams.get(key);
+                if (list == null) continue; // Repeated gram, already dropped
+                list.remove(position);
+                if (list.size == 0) grams.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Packs an n-gram of up to three UTF-16 chars and its length into a single long.
+     */
+    private static long gramKey(String value, int start, int length) {
+        long key = (long) length << 48;
+        for (int i = 0; i < length; i++) {
+            key |= (long) value.charAt(start + i) << (32 - 16 * i);
+        }
+        return key;
+    }
+
+    private static IntList postings(TreeMap<Integer, IntList> index, Integer value) {
+        IntList list = index.get(value);
+        if (list == null) {
+            list = new IntList();
+            index.put(value, list);
+        }
+        return list;
+    }
+
+    /**
+     * Lower-cases a field the same way for tickets and queries.
+     */
+    static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.getDefault());
+    }
+
+    /**
+     * The four filter fields, parsed and normalized once when the query is created.
+     */
+    public static class Query {
+        // Marks an empty date or time field (no filtering on it)
+        static final int ANY = Integer.MIN_VALUE;
+        // Marks a date or time that cannot be parsed (matches no ticket)
+        static final int NONE = Integer.MAX_VALUE;
+
+        final int day;      // Epoch day, ANY or NONE
+        final int minute;   // Minute of the day, ANY or NONE
+        final String license;
+        final String location;
+        final boolean byExpiry;     // Result ordered by expiry, limited to the range below
+        final int expiresFrom;      // Inclusive epoch minute or ANY
+        final int expiresBefore;    // Exclusive epoch minute or ANY
+
+        /**
+         * @param date "yyyy-MM-dd" or empty.
+         * @param time "HH:mm" or empty.
+         */
+        public Query(String date, String time, String license, String location) {
+            this(date, time, license, location, false, ANY, ANY);
+        }
+
+        private Query(String date, String time, String license, String location,
+                      boolean byExpiry, int expiresFrom, int expiresBefore) {
+            this.day = parse(date, TicketTime.parseDate(date));
+            this.minute = parse(time, TicketTime.parseTime(time));
+            this.license = normalize(license);
+            this.location = normalize(location);
+            this.byExpiry = byExpiry;
+            this.expiresFrom = expiresFrom;
+            this.expiresBefore = expiresBefore;
+        }
+
+        /**
+         * Tickets matching the fields and expiring in {@code [from, before)}, earliest first.
+         *
+         * @param from   Epoch minute, or {@link #ANY} for no lower bound.
+         * @param before Epoch minute, or {@link #ANY} for no upper bound.
+         */
+        public static Query expiring(String date, String time, String license, String location,
+                                     int from, int before) {
+            return new Query(date, time, license, location, true, from, before);
+        }
+
+        private static int parse(String text, int parsed) {
+            if (text == null || text.isEmpty()) return ANY;
+            return parsed != TicketTime.INVALID ? parsed : NONE;
+        }
+
+        /**
+         * @return True if every ticket matching this query also matches the previous one,
+         * i.e. each field is the previous value or a more specific one.
+         */
+        boolean refines(Query previous) {
+            return byExpiry == previous.byExpiry
+                    && (previous.expiresFrom == ANY || expiresFrom != ANY && expiresFrom >= previous.expiresFrom)
+                    && (previous.expiresBefore == ANY || expiresBefore != ANY && expiresBefore <= previous.expiresBefore)
+                    && (previous.day == ANY || previous.day == day)
+                    && (previous.minute == ANY || previous.minute == minute)
+                    && license.contains(previous.license)
+                    && location.contains(previous.location);
+        }
+    }
+
+    /**
+     * Growable array of ascending ticket positions.
+     */
+    static class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        /**
+         * Adds a position, keeping the list ascending; a position already present is ignored.
+         */
+        void insert(int value) {
+            if (size == 0 || data[size - 1] < value) {
+                add(value); // The common case: positions are indexed in ascending order
+                return;
+            }
+            int index = Arrays.binarySearch(data, 0, size, value);
+            if (index >= 0) return;
+            index = -index - 1;
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            System.arraycopy(data, index, data, index + 1, size - index);
+            data[index] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int index = Arrays.binarySearch(data, 0, size, value);
+            if (index < 0) return;
+            System.arraycopy(data, index + 1, data, index, size - index - 1);
+            size--;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ARIUS_projekt;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the list screen's filtering on a background thread.
+ * <p>
+ * The {@link TicketFilterEngine} is owned by a single worker thread: ticket updates are
+ * queued to it in order and every query is evaluated there. Typing is debounced, and each
+ * new query or data change supersedes the previous one; a stale evaluation is skipped
+ * before it starts, and its result is discarded if it finishes anyway. Results arrive on the
+ * main thread as {@link TicketRows} (row indices into a snapshot of the engine's columnar
+ * table, so no ticket objects are copied), together with a {@link TicketListDiff} against
+ * the rows currently shown.
+ * <p>
+ * All public methods must be called on the main thread.
+ */
+public class TicketFilterWorker {
+
+    // Delay after the last keystroke before the query is evaluated
+    static final long DEBOUNCE_MS = 150;
+
+    /**
+     * Receives filter results on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param rows The tickets to show, in list order.
+         * @param diff Operations turning the previously delivered rows into {@code rows}.
+         */
+        void onFiltered(TicketRows rows, TicketListDiff diff);
+    }
+
+    private final TicketFilterEngine engine = new TicketFilterEngine(); // Worker thread only
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "TicketFilterWorker"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Listener listener;
+
+    private TicketFilterEngine.Query query = new TicketFilterEngine.Query("", "", "", "");
+    private volatile TicketRows shown = TicketRows.EMPTY; // Last rows delivered
+    private Runnable scheduled;
+
+    public TicketFilterWorker(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Filters with a new query once the user stops typing for {@link #DEBOUNCE_MS}.
+     */
+    public void setQuery(TicketFilterEngine.Query query) {
+        this.query = query;
+        schedule(DEBOUNCE_MS);
+    }
+
+    /**
+     * Replaces all tickets and re-filters immediately.
+     */
+    public void setTickets(List<Ticket> tickets) {
+        List<Ticket> copy = new ArrayList<>(tickets);
+        executor.execute(() -> engine.setTickets(copy));
+        schedule(0);
+    }
+
+    /**
+     * Appends tickets (e.g. a newly loaded page) and re-filters immediately.
+     */
+    public void addTickets(List<Ticket> tickets) {
+        List<Ticket> copy = new ArrayList<>(tickets);
+        executor.execute(() -> engine.addTickets(copy));
+        schedule(0);
+    }
+
+    /**
+     * Removes a ticket and re-filters immediately.
+     */
+    public void remove(int ticketId) {
+        executor.execute(() -> engine.remove(ticketId));
+        schedule(0);
+    }
+
+    /**
+     * Removes several tickets (e.g. deleted by a sync) and re-filters immediately.
+     */
+    public void removeAll(List<Integer> ticketIds) {
+        List<Integer> copy = new ArrayList<>(ticketIds);
+        executor.execute(() -> {
+            for (int ticketId : copy) engine.remove(ticketId);
+        });
+        schedule(0);
+    }
+
+    /**
+     * Drops pending work and stops the worker thread. No result is delivered afterwards.
+     */
+    public void shutdown() {
+        generation.incrementAndGet();
+        if (scheduled != null) mainHandler.removeCallbacks(scheduled);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Supersedes any earlier evaluation and queues a new one after the given delay.
+     */
+    private void schedule(long delayMs) {
+        int expected = generation.incrementAndGet();
+        TicketFilterEngine.Query current = query;
+
+        if (scheduled != null) mainHandler.removeCallbacks(scheduled);
+        scheduled = () -> executor.execute(() -> evaluate(expected, current));
+        mainHandler.postDelayed(scheduled, delayMs);
+    }
+
+    /**
+     * Evaluates a query on the worker thread and posts the result, unless it became stale.
+     */
+    private void evaluate(int expected, TicketFilterEngine.Query current) {
+        if (expected != generation.get()) return; // Superseded while waiting in the queue
+
+        TicketRows rows = new TicketRows(engine.snapshot(), engine.filter(current));
+        TicketListDiff diff = TicketListDiff.calculate(shown, rows);
+
+        if (expected != generation.get()) return;
+        mainHandler.post(() -> {
+            if (expected != generation.get()) return; // Superseded while waiting for the main thread
+            shown = rows;
+            listener.onFiltered(rows, diff);
+        });
+    }
+}
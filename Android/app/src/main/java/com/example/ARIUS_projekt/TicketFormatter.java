@@ -0,0 +1,78 @@
+package com.example.ARIUS_projekt;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats ticket fields for display without {@link java.text.SimpleDateFormat}.
+ * <p>
+ * SimpleDateFormat is neither cheap to create nor thread-safe, so the rows and the details
+ * screen used to build two new instances for every bind. This formatter only holds immutable
+ * state (the month names, resolved once), so it can be used from any thread; {@link Ticket}
+ * uses it to compute its labels once, when the ticket is created by the parser or the
+ * repository on a background thread.
+ */
+final class TicketFormatter {
+
+    // Label prefixes shown in the list rows and on the details screen
+    static final String EXPIRY_LABEL = "Termin ważności: ";
+    static final String LICENSE_LABEL = "Nr rejestracyjny pojazdu: ";
+    static final String LOCATION_LABEL = "Lokalizacja: ";
+    static final String COUNTDOWN_LABEL = "Wygasa za: ";
+    static final String EXPIRED_LABEL = "Bilet wygasł";
+
+    // Expiry instant used for tickets whose expiry is unknown
+    static final long UNKNOWN_MILLIS = Long.MIN_VALUE;
+
+    // Abbreviated month names ("MMM") of the default locale, resolved once
+    private static final String[] SHORT_MONTHS =
+            DateFormatSymbols.getInstance(Locale.getDefault()).getShortMonths();
+
+    private TicketFormatter() {
+    }
+
+    // Shown instead of a date when the backend sent an unreadable expiry
+    static final String UNKNOWN_EXPIRY = "—";
+
+    /**
+     * Formats an epoch-minute expiry as "dd MMM yyyy, HH:mm" (e.g. "05 mar 2025, 14:30").
+     */
+    static String formatExpiry(int expiryMinute) {
+        if (expiryMinute == TicketTime.INVALID) return UNKNOWN_EXPIRY;
+
+        int date = TicketTime.civilFromDays(TicketTime.epochDay(expiryMinute));
+        int minuteOfDay = TicketTime.minuteOfDay(expiryMinute);
+        StringBuilder out = new StringBuilder(20);
+        appendTwoDigits(out, date % 100).append(' ')
+                .append(SHORT_MONTHS[date / 100 % 100 - 1]).append(' ')
+                .append(date / 10000).append(", ");
+        appendTwoDigits(out, minuteOfDay / 60).append(':');
+        appendTwoDigits(out, minuteOfDay % 60);
+        return out.toString();
+    }
+
+    /**
+     * Formats the time left until an expiry as "Wygasa za: [d d ]HH:mm:ss", rounded up to
+     * whole seconds, or {@link #EXPIRED_LABEL} once it has passed.
+     *
+     * @param expiresAtMillis Expiry instant (see {@link TicketTime#toMillis}) or {@link #UNKNOWN_MILLIS}.
+     * @param nowMillis       Current time.
+     */
+    static String formatCountdown(long expiresAtMillis, long nowMillis) {
+        if (expiresAtMillis == UNKNOWN_MILLIS) return UNKNOWN_EXPIRY;
+        long seconds = (expiresAtMillis - nowMillis + 999) / 1000;
+        if (seconds <= 0) return EXPIRED_LABEL;
+
+        StringBuilder out = new StringBuilder(24).append(COUNTDOWN_LABEL);
+        long days = seconds / (24 * 3600);
+        if (days > 0) out.append(days).append(" d ");
+        appendTwoDigits(out, (int) (seconds / 3600 % 24)).append(':');
+        appendTwoDigits(out, (int) (seconds / 60 % 60)).append(':');
+        appendTwoDigits(out, (int) (seconds % 60));
+        return out.toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder out, int value) {
+        return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,718 @@
+package com.example.ARIUS_projekt;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Base64;
+import android.util.Base64InputStream;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process-wide two-level cache of ticket images, keyed by ticket ID.
+ * <p>
+ * There are two independent instances: {@link #photos} for the full photos shown by the details
+ * screen, and {@link #thumbnails} for the small previews in the ticket list. Each {@link Kind}
+ * has its own endpoint, memory budget, disk directory and thread pool, so scrolling the list
+ * never waits behind a photo download and thumbnails never evict photos (or the other way round).
+ * <p>
+ * {@link #load} looks an image up in three places, cheapest first:
+ * <ol>
+ *     <li>an in-memory LRU of decoded bitmaps, bounded by their byte size (a fraction of the
+ *     heap) and trimmed when the system is low on memory;</li>
+ *     <li>an on-disk LRU of the compressed image bytes in the app's cache directory, bounded
+ *     in size, which survives process restarts;</li>
+ *     <li>the backend; the Base64 value is streamed out of the JSON response through a Base64
+ *     decoder straight into the disk cache, so the image never exists in memory as a String
+ *     or byte array.</li>
+ * </ol>
+ * Bitmaps are always decoded from the cached file, subsampled to the size they are displayed at,
+ * so the peak memory of showing a photo is roughly the one decoded bitmap. Decodes reuse the pixel
+ * memory of bitmaps nobody shows any more (see {@link BitmapPool}): each delivered bitmap is
+ * reference counted, and once it has left the memory cache and every receiver has
+ * {@link #release}d it, it goes to the pool.
+ * Opening the same ticket again therefore costs at most a file read and a decode, usually nothing.
+ * Tickets the backend has no image for are remembered in memory for {@link #NO_IMAGE_TTL_MILLIS}
+ * only, so scrolling does not ask again and again, but an image added later (e.g. a backfilled
+ * thumbnail) or a 404 for a ticket the backend did not know yet is not cached for good.
+ * Entries are invalidated when a ticket is deleted, and everything is dropped on logout
+ * (see {@link TicketSyncEngine}).
+ * <p>
+ * {@link #load} must be called on the main thread; disk and network work runs on a small
+ * background pool, and results are delivered on the main thread.
+ */
+public class TicketImageCache implements ComponentCallbacks2 {
+
+    private static final String TAG = "TicketImageCache";
+
+    /**
+     * The kinds of cached images and their budgets.
+     */
+    enum Kind {
+        PHOTO(ApiClient.Endpoint.TICKET_IMAGE, "image_base64", "ticket_images", 8, 20L * 1024 * 1024, 2),
+        THUMBNAIL(ApiClient.Endpoint.TICKET_THUMBNAIL, "thumbnail_base64", "ticket_thumbnails", 16, 5L * 1024 * 1024, 3);
+
+        final ApiClient.Endpoint endpoint;
+        final String field;             // Member of the JSON response holding the Base64 image
+        final String directory;         // Disk cache directory, under the app's cache directory
+        final int memoryFraction;       // Share of the heap the decoded bitmaps may occupy
+        final long diskCapacityBytes;   // Upper bound of the compressed images kept on disk
+        final int threads;
+
+        Kind(ApiClient.Endpoint endpoint, String field, String directory, int memoryFraction,
+             long diskCapacityBytes, int threads) {
+            this.endpoint = endpoint;
+            this.field = field;
+            this.directory = directory;
+            this.memoryFraction = memoryFraction;
+            this.diskCapacityBytes = diskCapacityBytes;
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * How long a ticket the backend has no image for is not asked again.
+     */
+    static final long NO_IMAGE_TTL_MILLIS = 10 * 60 * 1000;
+
+    private static volatile TicketImageCache photos;
+    private static volatile TicketImageCache thumbnails;
+
+    private final Kind kind;
+    private final ApiClient client;
+    private final File directory;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final BitmapPool pool;
+
+    // Decoded bitmaps by ticket ID and requested size (see key()); sizes in KiB
+    private final LruCache<Long, Bitmap> memory;
+
+    // Holders of each live bitmap: the memory cache and every receiver that has not released it
+    // yet; guarded by itself. A bitmap without holders goes to the pool.
+    private final IdentityHashMap<Bitmap, Integer> references = new IdentityHashMap<>();
+
+    // Compressed images on disk in access order (ticket ID -> file size); guarded by itself
+    private final LinkedHashMap<Integer, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Tickets without an image (ticket ID -> elapsed realtime until which that is trusted); guarded by itself
+    private final HashMap<Integer, Long> noImage = new HashMap<>();
+
+    // Generations of the cache contents, bumped by clear() and invalidate(): a load that started
+    // before its ticket was dropped must not cache what it fetched. Guarded by this.
+    private int generation;
+    private int clearedGeneration;                                               // Of the last clear()
+    private final HashMap<Integer, Integer> invalidatedGeneration = new HashMap<>(); // Since then, by ticket ID
+    private long diskSize;
+    private boolean diskIndexLoaded;
+
+    private TicketImageCache(Context context, Kind kind) {
+        this.kind = kind;
+        this.client = ApiClient.getInstance(context);
+        this.directory = new File(context.getCacheDir(), kind.directory);
+        this.pool = BitmapPool.getInstance(context);
+        this.executor = Executors.newFixedThreadPool(kind.threads,
+                r -> new Thread(r, "TicketImageCache-" + kind.name().toLowerCase(Locale.ROOT)));
+        int maxKib = (int) (Runtime.getRuntime().maxMemory() / 1024 / kind.memoryFraction);
+        this.memory = new LruCache<Long, Bitmap>(maxKib) {
+            @Override
+            protected int sizeOf(Long key, Bitmap bitmap) {
+                return Math.max(1, bitmap.getAllocationByteCount() / 1024);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Long key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue) release(oldValue);
+            }
+        };
+        context.getApplicationContext().registerComponentCallbacks(this);
+    }
+
+    /**
+     * Returns the process-wide cache of full ticket photos.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketImageCache photos(Context context) {
+        if (photos == null) {
+            synchronized (TicketImageCache.class) {
+                if (photos == null) {
+                    photos = new TicketImageCache(context.getApplicationContext(), Kind.PHOTO);
+                }
+            }
+        }
+        return photos;
+    }
+
+    /**
+     * Returns the process-wide cache of ticket list thumbnails.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketImageCache thumbnails(Context context) {
+        if (thumbnails == null) {
+            synchronized (TicketImageCache.class) {
+                if (thumbnails == null) {
+                    thumbnails = new TicketImageCache(context.getApplicationContext(), Kind.THUMBNAIL);
+                }
+            }
+        }
+        return thumbnails;
+    }
+
+    /**
+     * Loads the image of a ticket. A bitmap already in memory is delivered synchronously.
+     *
+     * @param ticketId  The ticket whose image to load.
+     * @param reqWidth  Width of the view showing the image, in pixels.
+     * @param reqHeight Height of the view showing the image, in pixels. The image is decoded
+     *                  just large enough to fill this box without upscaling. A view that is not
+     *                  measured yet (0 x 0) gets the smallest image.
+     * @param callback  Receives the bitmap (null if the ticket has no image) or the failure
+     *                  on the main thread. The receiver must {@link #release} the bitmap once it
+     *                  no longer shows it; until then its pixels are never reused.
+     * @return A future that can be used to cancel the load; cancelling suppresses the callback.
+     */
+    public Future<Bitmap> load(int ticketId, int reqWidth, int reqHeight, ApiClient.Callback<Bitmap> callback) {
+        // A zero size would keep doubling the sample size until it overflows
+        reqWidth = Math.max(1, reqWidth);
+        reqHeight = Math.max(1, reqHeight);
+        long key = key(ticketId, reqWidth, reqHeight);
+        Bitmap cached;
+        synchronized (references) { // So the bitmap cannot be pooled between lookup and retain
+            cached = memory.get(key);
+            if (cached != null) retain(cached);
+        }
+        if (cached != null) {
+            callback.onSuccess(cached);
+            FutureTask<Bitmap> done = new FutureTask<>(() -> cached);
+            done.run();
+            return done;
+        }
+        LoadTask task = new LoadTask(ticketId, reqWidth, reqHeight, generation(), callback);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Gives back a bitmap delivered by {@link #load}, once it is no longer shown. Its pixel memory
+     * is reused as soon as the memory cache has dropped it too. Does nothing for null.
+     */
+    public void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null) return;
+        synchronized (references) {
+            Integer count = references.get(bitmap);
+            if (count == null) return; // Not ours, or released twice
+            if (count > 1) {
+                references.put(bitmap, count - 1);
+                return;
+            }
+            references.remove(bitmap);
+        }
+        pool.put(bitmap);
+    }
+
+    private void retain(Bitmap bitmap) {
+        synchronized (references) {
+            Integer count = references.get(bitmap);
+            references.put(bitmap, count != null ? count + 1 : 1);
+        }
+    }
+
+    /**
+     * Stores an image the app already has, e.g. right after uploading it, so it is never
+     * downloaded. Does disk I/O; must not be called on the main thread.
+     */
+    public void store(int ticketId, byte[] image) {
+        int generation = generation();
+        forgetNoImage(Collections.singletonList(ticketId));
+        try {
+            writeToDisk(ticketId, new ByteArrayInputStream(image), generation);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not cache image of ticket " + ticketId, e);
+        }
+    }
+
+    /**
+     * Forgets the image of a deleted ticket, in memory and on disk.
+     */
+    public void invalidate(int ticketId) {
+        invalidate(Collections.singletonList(ticketId));
+    }
+
+    /**
+     * Forgets the images of several deleted tickets. Loads of these tickets that are still
+     * running cache nothing and deliver no image.
+     */
+    public void invalidate(List<Integer> ticketIds) {
+        synchronized (this) {
+            generation++;
+            for (int ticketId : ticketIds) invalidatedGeneration.put(ticketId, generation);
+            removeFromMemory(ticketIds);
+        }
+        forgetNoImage(ticketIds);
+        List<Integer> copy = new ArrayList<>(ticketIds);
+        executor.execute(() -> {
+            for (int ticketId : copy) removeFromDisk(ticketId);
+        });
+    }
+
+    /**
+     * Drops every cached image, e.g. when the user logs out. Loads that are still running
+     * cache nothing and deliver no image, so nothing of the previous user is written back.
+     */
+    public void clear() {
+        synchronized (this) {
+            generation++;
+            clearedGeneration = generation;
+            invalidatedGeneration.clear();
+            memory.evictAll();
+        }
+        synchronized (noImage) {
+            noImage.clear();
+        }
+        executor.execute(() -> {
+            synchronized (diskIndex) {
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+                    }
+                }
+                diskIndex.clear();
+                diskSize = 0;
+                diskIndexLoaded = true;
+            }
+        });
+    }
+
+    /**
+     * Drops the bitmaps of the given tickets, at every size they were decoded at.
+     */
+    private void removeFromMemory(List<Integer> ticketIds) {
+        for (Long key : memory.snapshot().keySet()) {
+            if (ticketIds.contains((int) (key >>> 32))) memory.remove(key);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            // The process is a candidate for being killed, or the foreground is starving
+            memory.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            memory.trimToSize(memory.maxSize() / 2);
+        }
+        // The pool handles the event itself, but the evicted bitmaps may have been pooled since
+        pool.trimToSize(pool.trimSize(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        memory.evictAll();
+        pool.clear(); // As above
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Cached images do not depend on the configuration
+    }
+
+    /**
+     * Disk, then network lookup (runs on the pool).
+     * Only a 404 from the backend counts as "no image". A cached file that is gone by the time
+     * it is read (evicted by another load) or cannot be decoded is a cache miss: the image is
+     * downloaded again.
+     */
+    @Nullable
+    private Bitmap fetch(int ticketId, int reqWidth, int reqHeight, int generation) throws Exception {
+        if (hasNoImage(ticketId)) return null; // Asked recently: there is none
+        boolean downloaded = false;
+        while (true) {
+            // The file stays readable through the open descriptor, even if it is evicted meanwhile
+            try (FileInputStream in = openDiskEntry(ticketId)) {
+                if (in != null) {
+                    Bitmap bitmap = decode(in.getFD(), reqWidth, reqHeight);
+                    if (bitmap != null) return cache(ticketId, reqWidth, reqHeight, bitmap, generation);
+                    removeFromDisk(ticketId);
+                    if (downloaded) throw new IOException("Undecodable image of ticket " + ticketId);
+                    Log.w(TAG, "Dropping undecodable cached image of ticket " + ticketId);
+                } else if (downloaded) {
+                    throw new IOException("Image of ticket " + ticketId + " was evicted before it was decoded");
+                }
+            }
+
+            File file = client.execute(
+                    ApiClient.Request.get(kind.endpoint, ticketId),
+                    response -> {
+                        if (response.code() == 404) {
+                            if (!isStale(ticketId, generation)) rememberNoImage(ticketId);
+                            return null;
+                        }
+                        if (response.code() != 200) {
+                            throw new ApiClient.HttpException(response.code(), response.readString());
+                        }
+                        return download(ticketId, response.body(), generation);
+                    });
+            if (file == null) return null; // No image, or the ticket was dropped meanwhile
+            downloaded = true;
+        }
+    }
+
+    /**
+     * Puts a decoded bitmap into the memory cache, unless the ticket was dropped since the load
+     * started (then the bitmap goes back to the pool and the load delivers no image).
+     */
+    @Nullable
+    private Bitmap cache(int ticketId, int reqWidth, int reqHeight, Bitmap bitmap, int generation) {
+        synchronized (this) { // Not cleared or invalidated between the check and the put
+            if (isStale(ticketId, generation)) {
+                pool.put(bitmap); // Never handed out
+                return null;
+            }
+            synchronized (references) {
+                references.put(bitmap, 2); // The memory cache and the receiver
+            }
+            memory.put(key(ticketId, reqWidth, reqHeight), bitmap);
+        }
+        return bitmap;
+    }
+
+    private synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * @return True if the ticket's cached image was dropped (by {@link #clear} or
+     * {@link #invalidate}) after a load that started at {@code startGeneration}.
+     */
+    private synchronized boolean isStale(int ticketId, int startGeneration) {
+        if (clearedGeneration > startGeneration) return true;
+        Integer invalidated = invalidatedGeneration.get(ticketId);
+        return invalidated != null && invalidated > startGeneration;
+    }
+
+    /**
+     * Streams the Base64 image value of an image response into the disk cache.
+     * The rest of the response is read to the end, so the connection can be reused.
+     *
+     * @return The cached file, or null if the ticket has no photo or its entry was dropped meanwhile.
+     */
+    @Nullable
+    private File download(int ticketId, InputStream body, int generation) throws IOException {
+        File file = null;
+        JsonTokenReader json = new JsonTokenReader(body);
+        json.beginObject();
+        while (json.hasNext()) {
+            if (kind.field.equals(json.nextName())) {
+                Reader base64 = json.nextStringReader();
+                if (base64 == null) continue;
+                try (InputStream image = new Base64InputStream(new CharsAsBytes(base64), Base64.DEFAULT)) {
+                    file = writeToDisk(ticketId, image, generation);
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return file;
+    }
+
+    /**
+     * Decodes a cached image, subsampled so that it still covers {@code reqWidth} x
+     * {@code reqHeight} when scaled to fit, but no larger than needed. The pixels go into a
+     * pooled bitmap if one fits.
+     */
+    @Nullable
+    private Bitmap decode(FileDescriptor fd, int reqWidth, int reqHeight) throws IOException {
+        // decodeFileDescriptor() leaves the position unchanged, so the descriptor is read twice
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFileDescriptor(fd, null, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        return pool.decode(options, decodeOptions -> BitmapFactory.decodeFileDescriptor(fd, null, decodeOptions));
+    }
+
+    /**
+     * @return The largest power of two that keeps a {@code width} x {@code height} image at
+     * least as large as it appears when scaled to fit a {@code reqWidth} x {@code reqHeight} box.
+     */
+    static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= reqWidth || height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Memory cache key: the ticket ID in the upper half, the requested size in the lower half.
+     */
+    private static long key(int ticketId, int reqWidth, int reqHeight) {
+        int size = (Math.min(reqWidth, 0xFFFF) << 16) | Math.min(reqHeight, 0xFFFF);
+        return ((long) ticketId << 32) | (size & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Looks a ticket up in the disk cache, marks its entry as recently used and opens it.
+     * Opened under the index lock, so an eviction cannot remove the file in between.
+     *
+     * @return The open cached image, or null if the ticket is not cached.
+     */
+    @Nullable
+    private FileInputStream openDiskEntry(int ticketId) {
+        synchronized (diskIndex) {
+            loadDiskIndex();
+            Long size = diskIndex.get(ticketId); // Also marks the entry as used
+            if (size == null) return null;
+            File file = file(ticketId);
+            FileInputStream in;
+            try {
+                in = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                // Deleted behind the index's back (e.g. the system cleared the cache directory)
+                diskIndex.remove(ticketId);
+                diskSize -= size;
+                return null;
+            }
+            // Keeps the access order across process restarts
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Log.w(TAG, "Could not touch " + file);
+            }
+            return in;
+        }
+    }
+
+    /**
+     * Records that the backend has no image for a ticket, so it is not asked again for a while.
+     */
+    private void rememberNoImage(int ticketId) {
+        synchronized (noImage) {
+            noImage.put(ticketId, SystemClock.elapsedRealtime() + NO_IMAGE_TTL_MILLIS);
+        }
+    }
+
+    /**
+     * @return True if the backend recently answered that the ticket has no image.
+     */
+    private boolean hasNoImage(int ticketId) {
+        synchronized (noImage) {
+            Long until = noImage.get(ticketId);
+            if (until == null) return false;
+            if (SystemClock.elapsedRealtime() < until) return true;
+            noImage.remove(ticketId); // Expired: ask again
+            return false;
+        }
+    }
+
+    private void forgetNoImage(List<Integer> ticketIds) {
+        synchronized (noImage) {
+            for (int ticketId : ticketIds) noImage.remove(ticketId);
+        }
+    }
+
+    /**
+     * Copies an image into the disk cache and evicts the least recently used entries.
+     * The copy streams into a temporary file outside the lock, so a slow download does not
+     * block lookups of other tickets.
+     *
+     * @return The cached file, or null if the image was empty or the ticket's entry was dropped meanwhile.
+     */
+    @Nullable
+    private File writeToDisk(int ticketId, InputStream image, int generation) throws IOException {
+        synchronized (diskIndex) {
+            loadDiskIndex(); // Before the temporary file exists, so it is not mistaken for a leftover
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+        }
+        // Written under a temporary name, so a crash never leaves a truncated entry behind
+        File temp = File.createTempFile(ticketId + "-", ".tmp", directory);
+        long length = 0;
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = image.read(chunk)) != -1) {
+                out.write(chunk, 0, n);
+                length += n;
+            }
+        } catch (IOException e) {
+            if (!temp.delete()) Log.w(TAG, "Could not delete " + temp);
+            throw e;
+        }
+        if (length == 0) {
+            if (!temp.delete()) Log.w(TAG, "Could not delete " + temp);
+            return null;
+        }
+
+        synchronized (diskIndex) {
+            // Checked under the lock: removing the files of a clear() or invalidate() takes it too,
+            // so either that removal runs after the rename, or the rename sees the new generation
+            if (isStale(ticketId, generation)) {
+                if (temp.exists() && !temp.delete()) Log.w(TAG, "Could not delete " + temp);
+                return null;
+            }
+            File file = file(ticketId);
+            if (!temp.renameTo(file)) {
+                if (!temp.delete()) Log.w(TAG, "Could not delete " + temp);
+                throw new IOException("Could not move " + temp + " to " + file);
+            }
+            Long previous = diskIndex.put(ticketId, length);
+            diskSize += length - (previous != null ? previous : 0);
+
+            // Evict the least recently used entries
+            Iterator<Map.Entry<Integer, Long>> eldest = diskIndex.entrySet().iterator();
+            while (diskSize > kind.diskCapacityBytes && eldest.hasNext()) {
+                Map.Entry<Integer, Long> entry = eldest.next();
+                if (entry.getKey() == ticketId) continue;
+                if (!file(entry.getKey()).delete()) Log.w(TAG, "Could not evict " + entry.getKey());
+                diskSize -= entry.getValue();
+                eldest.remove();
+            }
+            return file;
+        }
+    }
+
+    private void removeFromDisk(int ticketId) {
+        synchronized (diskIndex) {
+            loadDiskIndex();
+            Long size = diskIndex.remove(ticketId);
+            if (size != null) diskSize -= size;
+            File file = file(ticketId);
+            if (file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    /**
+     * Rebuilds the access order from the files' modification times, once per process.
+     */
+    private void loadDiskIndex() {
+        if (diskIndexLoaded) return;
+        diskIndexLoaded = true;
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            try {
+                int ticketId = Integer.parseInt(file.getName());
+                if (file.length() == 0) {
+                    // "No image" marker of an earlier version; such answers are no longer kept on disk
+                    if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+                    continue;
+                }
+                diskIndex.put(ticketId, file.length());
+                diskSize += file.length();
+            } catch (NumberFormatException e) {
+                // Leftover temporary file of an interrupted write
+                if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+            }
+        }
+    }
+
+    private File file(int ticketId) {
+        return new File(directory, Integer.toString(ticketId));
+    }
+
+    /**
+     * Future running a single lookup on the pool and posting its outcome to the main thread.
+     */
+    private final class LoadTask extends FutureTask<Bitmap> {
+
+        private final ApiClient.Callback<Bitmap> callback;
+
+        LoadTask(int ticketId, int reqWidth, int reqHeight, int generation, ApiClient.Callback<Bitmap> callback) {
+            super(() -> fetch(ticketId, reqWidth, reqHeight, generation));
+            this.callback = callback;
+        }
+
+        @Override
+        protected void set(Bitmap bitmap) {
+            super.set(bitmap);
+            // Cancelled while running: the result is dropped, and so is the receiver's reference
+            if (isCancelled()) release(bitmap);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            mainHandler.post(() -> {
+                if (isCancelled()) return; // Cancelled while waiting for the main thread
+                try {
+                    callback.onSuccess(get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    callback.onFailure(cause instanceof Exception ? (Exception) cause : e);
+                } catch (InterruptedException e) {
+                    callback.onFailure(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Presents the characters of a Base64 text as the ASCII bytes {@link Base64InputStream} expects.
+     */
+    private static final class CharsAsBytes extends InputStream {
+
+        private final Reader reader;
+        private final char[] chars = new char[8192];
+
+        CharsAsBytes(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = reader.read();
+            return c < 0 ? -1 : c & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = reader.read(chars, 0, Math.min(len, chars.length));
+            for (int i = 0; i < n; i++) b[off + i] = (byte) chars[i];
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
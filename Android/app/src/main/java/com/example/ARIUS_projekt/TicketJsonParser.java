@@ -0,0 +1,126 @@
+package com.example.ARIUS_projekt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds {@link Ticket} objects directly from a backend response stream.
+ * <p>
+ * Tickets are handed to the caller one at a time as soon as their closing brace is read,
+ * so the raw response is never held in memory as a String or an org.json tree.
+ * Fields the list does not need (most notably {@code image_base64}) are skipped
+ * without being materialized.
+ */
+public class TicketJsonParser {
+
+    /**
+     * Parses a JSON array of tickets, e.g. the body of {@code GET /tickets}.
+     *
+     * @param stream The response body.
+     * @param sink   Receives every parsed ticket in the order it appears in the stream.
+     * @return The number of tickets parsed.
+     * @throws IOException If the stream cannot be read or is not a JSON array of objects.
+     */
+    public static int parseTicketArray(InputStream stream, Consumer<Ticket> sink) throws IOException {
+        JsonTokenReader reader = new JsonTokenReader(stream);
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            sink.accept(readTicket(reader));
+            count++;
+        }
+        reader.endArray();
+        return count;
+    }
+
+    /**
+     * Parses a single ticket object, e.g. the body of {@code GET /ticket/<id>}.
+     *
+     * @param stream The response body.
+     * @return The parsed ticket (without its image).
+     * @throws IOException If the stream cannot be read or is not a JSON object.
+     */
+    public static Ticket parseTicket(InputStream stream) throws IOException {
+        return readTicket(new JsonTokenReader(stream));
+    }
+
+    /**
+     * Parses the body of {@code GET /tickets/changes}:
+     * {@code {"changed": [...], "deleted": [ids], "sync_token": "..."}}.
+     *
+     * @param stream  The response body.
+     * @param changed Receives every created or modified ticket.
+     * @param deleted Receives the ID of every deleted ticket.
+     * @return The sync token to send with the next delta request.
+     * @throws IOException If the stream cannot be read or has an unexpected shape.
+     */
+    public static String parseChanges(InputStream stream, Consumer<Ticket> changed,
+                                      IntConsumer deleted) throws IOException {
+        JsonTokenReader reader = new JsonTokenReader(stream);
+        String syncToken = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "changed":
+                    reader.beginArray();
+                    while (reader.hasNext()) changed.accept(readTicket(reader));
+                    reader.endArray();
+                    break;
+                case "deleted":
+                    reader.beginArray();
+                    while (reader.hasNext()) deleted.accept(reader.nextInt());
+                    reader.endArray();
+                    break;
+                case "sync_token":
+                    syncToken = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (syncToken == null) throw new IOException("Missing sync_token in changes response");
+        return syncToken;
+    }
+
+    /**
+     * Reads a single ticket object at the reader's current position.
+     */
+    static Ticket readTicket(JsonTokenReader reader) throws IOException {
+        int id = -1;
+        String date = null, time = null, license = null, location = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "time":
+                    time = reader.nextString();
+                    break;
+                case "vehicle_number":
+                    license = reader.nextString();
+                    break;
+                case "location":
+                    location = reader.nextString();
+                    break;
+                default:
+                    // image_base64 and any field added later: skip without copying
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return Ticket.fromBackend(id, date, time, license, location);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.ARIUS_projekt;
+
+import java.util.Arrays;
+
+/**
+ * Difference between two ticket lists as a short sequence of range operations
+ * (remove / insert / change), applicable in order to turn the old list into the new one.
+ * <p>
+ * Tickets are matched by ID. Tickets kept in the same relative order stay in place;
+ * a ticket whose relative order changed is reported as removed and re-inserted (the
+ * longest run of tickets in order is kept, so this is the minimal set of such moves).
+ * A kept ticket whose data changed (e.g. updated by a sync) is reported as changed,
+ * so only its row is rebound.
+ * <p>
+ * Runs in O(n log n) and is meant to be calculated off the main thread. IDs are looked up in
+ * an open-addressing table of primitive ints, so no boxed keys are created per ticket.
+ */
+public final class TicketListDiff {
+
+    /**
+     * Receives the operations of a diff, in order.
+     */
+    public interface Callback {
+        void onRemoved(int position, int count);
+
+        void onInserted(int position, int count);
+
+        void onChanged(int position, int count);
+    }
+
+    private static final int REMOVE = 0;
+    private static final int INSERT = 1;
+    private static final int CHANGE = 2;
+
+    // Operations as (type, position, count) triples
+    private int[] ops = new int[12];
+    private int length;
+
+    private TicketListDiff() {
+    }
+
+    /**
+     * Calculates the operations turning {@code oldList} into {@code newList}.
+     */
+    public static TicketListDiff calculate(TicketRows oldList, TicketRows newList) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+
+        // Open-addressing table from ticket ID to its index in the new list (linear probing)
+        int capacity = Integer.highestOneBit(Math.max(newSize, 1) * 2) * 2;
+        int mask = capacity - 1;
+        int[] slotIds = new int[capacity];
+        int[] slotIndexes = new int[capacity];
+        Arrays.fill(slotIndexes, -1);
+        for (int j = 0; j < newSize; j++) {
+            int id = newList.id(j);
+            int slot = hash(id) & mask;
+            while (slotIndexes[slot] >= 0 && slotIds[slot] != id) slot = (slot + 1) & mask;
+            slotIds[slot] = id;
+            slotIndexes[slot] = j;
+        }
+
+        int[] oldToNew = new int[oldSize];
+        for (int i = 0; i < oldSize; i++) {
+            int id = oldList.id(i);
+            int slot = hash(id) & mask;
+            while (slotIndexes[slot] >= 0 && slotIds[slot] != id) slot = (slot + 1) & mask;
+            oldToNew[i] = slotIndexes[slot];
+        }
+
+        // Tickets present in both lists and in the same relative order stay in place
+        boolean[] keepOld = new boolean[oldSize];
+        boolean[] keepNew = new boolean[newSize];
+        markLongestIncreasing(oldToNew, keepOld);
+        for (int i = 0; i < oldSize; i++) {
+            if (keepOld[i]) keepNew[oldToNew[i]] = true;
+        }
+
+        TicketListDiff diff = new TicketListDiff();
+        int i = 0, j = 0, position = 0;
+        while (i < oldSize || j < newSize) {
+            if (i < oldSize && !keepOld[i]) {
+                int start = i;
+                while (i < oldSize && !keepOld[i]) i++;
+                diff.add(REMOVE, position, i - start);
+            } else if (j < newSize && !keepNew[j]) {
+                int start = j;
+                while (j < newSize && !keepNew[j]) j++;
+                diff.add(INSERT, position, j - start);
+                position += j - start;
+            } else {
+                // Both point at the same kept ticket
+                if (!oldList.sameContent(i, newList, j)) diff.add(CHANGE, position, 1);
+                i++;
+                j++;
+                position++;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * @return True if both lists show the same tickets, with the same data, in the same order.
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Replays the operations, in order, into the callback.
+     */
+    public void dispatchTo(Callback callback) {
+        for (int k = 0; k < length; k += 3) {
+            int position = ops[k + 1], count = ops[k + 2];
+            switch (ops[k]) {
+                case REMOVE:
+                    callback.onRemoved(position, count);
+                    break;
+                case INSERT:
+                    callback.onInserted(position, count);
+                    break;
+                default:
+                    callback.onChanged(position, count);
+                    break;
+            }
+        }
+    }
+
+    private void add(int type, int position, int count) {
+        // Coalesce with the previous operation when it covers the adjacent range
+        if (length > 0 && ops[length - 3] == type) {
+            int lastPosition = ops[length - 2], lastCount = ops[length - 1];
+            if ((type == REMOVE && lastPosition == position)
+                    || (type != REMOVE && lastPosition + lastCount == position)) {
+                ops[length - 1] += count;
+                return;
+            }
+        }
+        if (length + 3 > ops.length) ops = Arrays.copyOf(ops, ops.length * 2);
+        ops[length++] = type;
+        ops[length++] = position;
+        ops[length++] = count;
+    }
+
+    /**
+     * Spreads sequential IDs over the table (Fibonacci hashing).
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Marks the entries forming a longest strictly increasing subsequence of the
+     * non-negative values (patience sorting with back-pointers).
+     */
+    private static void markLongestIncreasing(int[] values, boolean[] marked) {
+        int n = values.length;
+        int[] tails = new int[n];     // Index of the smallest tail of an increasing run per length
+        int[] previous = new int[n];  // Back-pointer to the previous entry of the run
+        int runs = 0;
+
+        for (int i = 0; i < n; i++) {
+            int value = values[i];
+            if (value < 0) continue;
+
+            int low = 0, high = runs;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < value) low = mid + 1;
+                else high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == runs) runs++;
+        }
+
+        for (int i = runs > 0 ? tails[runs - 1] : -1; i >= 0; i = previous[i]) {
+            marked[i] = true;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Turns a photo picked from the gallery into the JPEG that is uploaded with a ticket.
+ * <p>
+ * Camera photos are far larger than needed to read a parking ticket (a 48 MP photo decodes
+ * to a ~190 MB bitmap), so the image is never decoded at full size:
+ * <ol>
+ *     <li>the bounds are read first, without allocating any pixels;</li>
+ *     <li>the image is decoded with a power-of-two {@code inSampleSize}, so the decoder itself
+ *     skips pixels and the bitmap is at most about twice the target resolution;</li>
+ *     <li>the remaining scaling and the EXIF orientation are applied in a single transform;</li>
+ *     <li>the result is encoded to JPEG, lowering the quality (and, as a last resort, the
+ *     resolution) until it fits in {@link #MAX_BYTES}.</li>
+ * </ol>
+ * A small thumbnail for the ticket list ({@link #THUMBNAIL_DIMENSION}) is made from the same
+ * decoded bitmap and uploaded separately, so list rows never need the full photo.
+ * Decodes draw their pixel memory from the {@link BitmapPool}, and intermediate bitmaps are
+ * returned to it, so preparing photo after photo does not keep allocating large buffers.
+ * All methods do I/O and heavy work, so they must be called off the main thread. Interrupting
+ * the calling thread stops the work between stages with an {@link InterruptedIOException}.
+ */
+public final class TicketPhotoProcessor {
+
+    private static final String TAG = "TicketPhotoProcessor";
+
+    /**
+     * Longest side of the uploaded photo, in pixels. Enough to read the print on a ticket.
+     */
+    static final int MAX_DIMENSION = 1600;
+
+    /**
+     * Upper bound of the encoded photo size, in bytes.
+     */
+    static final int MAX_BYTES = 512 * 1024;
+
+    /**
+     * Longest side of the list thumbnail, in pixels.
+     */
+    static final int THUMBNAIL_DIMENSION = 256;
+
+    private static final int THUMBNAIL_QUALITY = 75;
+
+    // JPEG quality steps tried before the resolution is reduced further
+    private static final int INITIAL_QUALITY = 85;
+    private static final int MIN_QUALITY = 55;
+    private static final int QUALITY_STEP = 10;
+
+    // Scale applied when even the lowest quality does not fit in MAX_BYTES
+    private static final float FALLBACK_SCALE = 0.75f;
+
+    /**
+     * A photo ready for upload.
+     */
+    public static final class Encoded {
+        /** The photo as JPEG, at most {@link #MAX_BYTES} long. */
+        public final byte[] photo;
+        /** Its thumbnail as JPEG, at most {@link #THUMBNAIL_DIMENSION} pixels on the longest side. */
+        public final byte[] thumbnail;
+
+        Encoded(byte[] photo, byte[] thumbnail) {
+            this.photo = photo;
+            this.thumbnail = thumbnail;
+        }
+    }
+
+    private TicketPhotoProcessor() {
+    }
+
+    /**
+     * Decodes, downsamples, rotates and encodes the photo behind {@code uri}, and makes its thumbnail.
+     *
+     * @throws IOException If the image cannot be read or decoded.
+     */
+    public static Encoded encodeForUpload(Context context, Uri uri) throws IOException {
+        BitmapPool pool = BitmapPool.getInstance(context);
+        Bitmap bitmap = decode(context, uri, MAX_DIMENSION);
+        byte[] thumbnail;
+        try {
+            thumbnail = encodeThumbnail(bitmap, pool);
+        } catch (IOException | RuntimeException e) {
+            pool.put(bitmap);
+            throw e;
+        }
+        return new Encoded(encode(bitmap, pool), thumbnail);
+    }
+
+    /**
+     * Decodes the photo behind {@code uri} so that its longest side is at most
+     * {@code maxDimension}, upright according to its EXIF orientation. The bitmap should be
+     * put into the {@link BitmapPool} once it is no longer used.
+     *
+     * @throws IOException If the image cannot be read or decoded.
+     */
+    static Bitmap decode(Context context, Uri uri, int maxDimension) throws IOException {
+        BitmapPool pool = BitmapPool.getInstance(context);
+        // 1. Bounds only: no pixel memory is allocated
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(context, uri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + uri);
+        }
+        int orientation = readOrientation(context, uri);
+        checkInterrupted();
+
+        // 2. Subsampled decode, into a pooled bitmap if one fits
+        options.inSampleSize = sampleSize(Math.max(options.outWidth, options.outHeight), maxDimension);
+        Bitmap sampled = pool.decode(options, decodeOptions -> {
+            try (InputStream in = open(context, uri)) {
+                return BitmapFactory.decodeStream(in, null, decodeOptions);
+            }
+        });
+        if (sampled == null) {
+            throw new IOException("Failed to decode image: " + uri);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            pool.put(sampled);
+            checkInterrupted();
+        }
+
+        // 3. Exact scaling and orientation in one pass
+        float scale = Math.min(1f, (float) maxDimension / Math.max(sampled.getWidth(), sampled.getHeight()));
+        return transform(sampled, scale, orientation, pool);
+    }
+
+    /**
+     * Encodes the bitmap to JPEG within {@link #MAX_BYTES}. The bitmap is returned to the pool afterwards.
+     */
+    private static byte[] encode(Bitmap bitmap, BitmapPool pool) throws InterruptedIOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_BYTES);
+        Bitmap current = bitmap;
+        try {
+            while (true) {
+                for (int quality = INITIAL_QUALITY; quality >= MIN_QUALITY; quality -= QUALITY_STEP) {
+                    checkInterrupted();
+                    out.reset();
+                    current.compress(Bitmap.CompressFormat.JPEG, quality, out);
+                    if (out.size() <= MAX_BYTES) return out.toByteArray();
+                }
+                // Still too large: reduce the resolution and start over (pools the larger bitmap)
+                current = transform(current, FALLBACK_SCALE, ExifInterface.ORIENTATION_NORMAL, pool);
+            }
+        } finally {
+            pool.put(current);
+        }
+    }
+
+    /**
+     * Encodes a scaled-down copy of the bitmap; the bitmap itself is left untouched.
+     */
+    private static byte[] encodeThumbnail(Bitmap bitmap, BitmapPool pool) throws InterruptedIOException {
+        checkInterrupted();
+        float scale = Math.min(1f, (float) THUMBNAIL_DIMENSION / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        Bitmap thumbnail = scale < 1f
+                ? Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                        Math.max(1, Math.round(bitmap.getHeight() * scale)), true)
+                : bitmap;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        thumbnail.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, out);
+        if (thumbnail != bitmap) pool.put(thumbnail);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The largest power of two that keeps the decoded longest side at or above
+     * {@code maxDimension}, so no detail below the target resolution is lost.
+     */
+    static int sampleSize(int longestSide, int maxDimension) {
+        int sampleSize = 1;
+        while (longestSide / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Scales and re-orients {@code source}. The source is returned to the pool if a new bitmap is created.
+     */
+    private static Bitmap transform(Bitmap source, float scale, int orientation, BitmapPool pool) {
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                if (scale == 1f) return source; // Nothing to do
+        }
+        Bitmap result = Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (result != source) pool.put(source);
+        return result;
+    }
+
+    /**
+     * @return The EXIF orientation of the image, or {@link ExifInterface#ORIENTATION_NORMAL}
+     * if it has none or it cannot be read.
+     */
+    private static int readOrientation(Context context, Uri uri) {
+        try (InputStream in = open(context, uri)) {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read EXIF orientation of " + uri, e);
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * @throws InterruptedIOException If the calling thread has been interrupted (work cancelled).
+     */
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Photo preparation cancelled");
+        }
+    }
+
+    private static InputStream open(Context context, Uri uri) throws IOException {
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) throw new IOException("Failed to open InputStream for URI: " + uri);
+        return in;
+    }
+}
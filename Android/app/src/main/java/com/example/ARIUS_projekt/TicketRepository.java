@@ -0,0 +1,221 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistent on-device ticket store; the single source of truth for the list and
+ * details screens. Everything shown is read from here first and network results are
+ * written back, so the app can render instantly and keeps working offline.
+ * <p>
+ * All methods block on disk I/O and must be called from a background thread.
+ */
+public class TicketRepository {
+
+    // Keys used in the sync_state table
+    static final String STATE_SYNC_TOKEN = "sync_token";
+    static final String STATE_NEXT_CURSOR = "next_cursor";
+    static final String STATE_HAS_MORE = "has_more";
+    static final String STATE_ALARM_WATERMARK = "alarm_watermark";
+
+    private static final String COLUMNS = "id, expiry_minute, license, location";
+
+    private static volatile TicketRepository instance;
+
+    private final TicketDatabase database;
+
+    private TicketRepository(Context context) {
+        this.database = new TicketDatabase(context);
+    }
+
+    /**
+     * Returns the process-wide repository instance.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TicketRepository.class) {
+                if (instance == null) {
+                    instance = new TicketRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return All stored tickets ordered by ID (the order the backend pages them in).
+     */
+    public List<Ticket> getAll() {
+        List<Ticket> result = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT " + COLUMNS + " FROM " + TicketDatabase.TABLE_TICKETS + " ORDER BY id", null)) {
+            while (cursor.moveToNext()) {
+                result.add(readTicket(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The first ticket expiring strictly after the given epoch minute (earliest
+     * expiry, then lowest ID), or null if there is none. Served by the expiry index.
+     */
+    @Nullable
+    public Ticket getNextExpiring(int afterMinute) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT " + COLUMNS + " FROM " + TicketDatabase.TABLE_TICKETS
+                        + " WHERE expiry_minute > ? ORDER BY expiry_minute, id LIMIT 1",
+                new String[]{String.valueOf(afterMinute)})) {
+            return cursor.moveToFirst() ? readTicket(cursor) : null;
+        }
+    }
+
+    /**
+     * @return The tickets expiring in {@code (afterMinute, untilMinute]}, earliest first.
+     */
+    public List<Ticket> getExpiring(int afterMinute, int untilMinute) {
+        List<Ticket> result = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT " + COLUMNS + " FROM " + TicketDatabase.TABLE_TICKETS
+                        + " WHERE expiry_minute > ? AND expiry_minute <= ? ORDER BY expiry_minute, id",
+                new String[]{String.valueOf(afterMinute), String.valueOf(untilMinute)})) {
+            while (cursor.moveToNext()) {
+                result.add(readTicket(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The stored ticket with the given ID, or null if it is not stored.
+     */
+    @Nullable
+    public Ticket get(int id) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT " + COLUMNS + " FROM " + TicketDatabase.TABLE_TICKETS + " WHERE id = ?",
+                new String[]{String.valueOf(id)})) {
+            return cursor.moveToFirst() ? readTicket(cursor) : null;
+        }
+    }
+
+    /**
+     * Inserts or replaces the given tickets in a single transaction.
+     */
+    public void upsert(Collection<Ticket> tickets) {
+        if (tickets.isEmpty()) return;
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO "
+                    + TicketDatabase.TABLE_TICKETS + " (" + COLUMNS + ") VALUES (?, ?, ?, ?)");
+            for (Ticket ticket : tickets) {
+                insert.clearBindings();
+                insert.bindLong(1, ticket.id);
+                insert.bindLong(2, ticket.expiryMinute);
+                insert.bindString(3, ticket.license);
+                insert.bindString(4, ticket.location);
+                insert.executeInsert();
+            }
+            insert.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Replaces all stored tickets with the given ones in a single transaction
+     * (used when a full reload starts over from the first page).
+     */
+    public void replaceAll(Collection<Ticket> tickets) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TicketDatabase.TABLE_TICKETS, null, null);
+            upsert(tickets); // Joins this transaction
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes the tickets with the given IDs in a single transaction.
+     */
+    public void delete(Collection<Integer> ids) {
+        if (ids.isEmpty()) return;
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement delete = db.compileStatement(
+                    "DELETE FROM " + TicketDatabase.TABLE_TICKETS + " WHERE id = ?");
+            for (int id : ids) {
+                delete.bindLong(1, id);
+                delete.executeUpdateDelete();
+            }
+            delete.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Removes every ticket and all sync state (e.g. on logout).
+     */
+    public void clear() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TicketDatabase.TABLE_TICKETS, null, null);
+            db.delete(TicketDatabase.TABLE_SYNC_STATE, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return The stored sync state value for the key, or null if absent.
+     */
+    @Nullable
+    public String getState(String key) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT value FROM " + TicketDatabase.TABLE_SYNC_STATE + " WHERE key = ?",
+                new String[]{key})) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    /**
+     * Stores a sync state value; a null value removes the key.
+     */
+    public void putState(String key, @Nullable String value) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        if (value == null) {
+            db.delete(TicketDatabase.TABLE_SYNC_STATE, "key = ?", new String[]{key});
+        } else {
+            db.execSQL("INSERT OR REPLACE INTO " + TicketDatabase.TABLE_SYNC_STATE
+                    + " (key, value) VALUES (?, ?)", new Object[]{key, value});
+        }
+    }
+
+    private static Ticket readTicket(Cursor cursor) {
+        return new Ticket(
+                cursor.getInt(0),
+                cursor.getInt(1),
+                cursor.getString(2),
+                cursor.getString(3)
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ARIUS_projekt;
+
+/**
+ * An ordered selection of rows of a {@link TicketTable}, e.g. the result of a filter.
+ * <p>
+ * Holds only an {@code int[]} of row indices, so producing a view for every keystroke
+ * allocates one small array instead of a list of ticket objects. Immutable and safe to
+ * hand from the filter worker to the main thread.
+ */
+public final class TicketRows {
+
+    static final TicketRows EMPTY = new TicketRows(TicketTable.EMPTY, new int[0]);
+
+    private final TicketTable table;
+    private final int[] rows;
+
+    TicketRows(TicketTable table, int[] rows) {
+        this.table = table;
+        this.rows = rows;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public int id(int index) {
+        return table.ids[rows[index]];
+    }
+
+    public int expiryMinute(int index) {
+        return table.expiries[rows[index]];
+    }
+
+    public String expiryLabel(int index) {
+        return table.expiryLabels[rows[index]];
+    }
+
+    public String licenseLabel(int index) {
+        return table.licenseLabels[rows[index]];
+    }
+
+    public String locationLabel(int index) {
+        return table.locationLabels[rows[index]];
+    }
+
+    /**
+     * Materializes the ticket at the index (allocates; not meant for binding rows).
+     */
+    public Ticket ticket(int index) {
+        return table.ticket(rows[index]);
+    }
+
+    /**
+     * @return True if the ticket at {@code index} shows the same data as the ticket
+     * at {@code otherIndex} of {@code other}. Strings are pooled, so they are compared by reference.
+     */
+    boolean sameContent(int index, TicketRows other, int otherIndex) {
+        int row = rows[index];
+        int otherRow = other.rows[otherIndex];
+        if (table == other.table && row == otherRow) return true;
+        TicketTable otherTable = other.table;
+        return table.expiries[row] == otherTable.expiries[otherRow]
+                && table.licenses[row] == otherTable.licenses[otherRow]
+                && table.locations[row] == otherTable.locations[otherRow];
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide ticket store that keeps the list screen in sync with the backend incrementally.
+ * <p>
+ * The first load pages through {@code GET /tickets} (via {@link RemoteTicketDataSource})
+ * and remembers the sync token the backend sent with the first page. Every later load
+ * shows the stored tickets at once and asks {@code GET /tickets/changes} only for what was
+ * created, modified or deleted since that token, so re-opening the screen costs a small
+ * delta instead of the whole ticket set.
+ * <p>
+ * Everything received is written through to {@link TicketRepository}, together with the
+ * sync token and paging cursor, and the repository is the only copy the engine keeps:
+ * the tickets themselves live in the list screen's columnar {@link TicketTable}, and each
+ * load renders them again from disk before asking the backend for the delta. This also
+ * keeps the list usable without a connection and after a process restart. Every write
+ * re-arms the on-device expiry alarm ({@link TicketExpiryScheduler}), and deleted tickets
+ * are dropped from the photo and thumbnail caches ({@link TicketImageCache}).
+ * <p>
+ * All methods must be called on the main thread; callbacks are delivered there too.
+ * Disk I/O runs on a single background thread, so writes are applied in call order.
+ */
+public class TicketSyncEngine implements TicketDataSource {
+
+    private static final String TAG = "TicketSyncEngine";
+
+    private static TicketSyncEngine instance;
+
+    private final ApiClient client;
+    private final RemoteTicketDataSource pager;
+    private final TicketRepository repository;
+    private final TicketExpiryScheduler expiryScheduler;
+    private final TicketImageCache photos;
+    private final TicketImageCache thumbnails;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "TicketSyncEngine-disk"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Nullable
+    private String syncToken;          // High-water mark of the last successful sync
+    @Nullable
+    private Future<?> pendingDelta;    // Delta request currently in flight
+
+    private boolean restored;          // True once the sync state has been read from disk
+    private boolean restoring;         // A disk read is in progress
+    @Nullable
+    private Callback restoreCallback;  // Load waiting for the disk read to finish
+    private int generation;            // Bumped by clear() to discard a stale disk read
+
+    private TicketSyncEngine(Context context) {
+        this.client = ApiClient.getInstance(context);
+        this.pager = new RemoteTicketDataSource(context);
+        this.repository = TicketRepository.getInstance(context);
+        this.expiryScheduler = TicketExpiryScheduler.getInstance(context);
+        this.photos = TicketImageCache.photos(context);
+        this.thumbnails = TicketImageCache.thumbnails(context);
+    }
+
+    /**
+     * Returns the process-wide engine instance.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketSyncEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new TicketSyncEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Delivers the stored tickets read from disk, then fetches and forwards the changes
+     * made since the last sync. Without a previous sync, starts a full paged load instead.
+     */
+    @Override
+    public void loadInitial(Callback callback) {
+        cancelDelta();
+        restoreCallback = callback;
+        if (!restoring) restore();
+    }
+
+    private void sync(Callback callback) {
+        if (syncToken == null) {
+            pager.loadInitial(persisting(callback));
+            return;
+        }
+
+        pendingDelta = client.enqueue(
+                ApiClient.Request.get(ApiClient.Endpoint.TICKET_CHANGES).query("since", syncToken),
+                TicketSyncEngine::readDelta,
+                new ApiClient.Callback<Delta>() {
+                    @Override
+                    public void onSuccess(Delta delta) {
+                        pendingDelta = null;
+                        apply(delta);
+                        // Changed tickets replace their previous version by ID
+                        if (!delta.changed.isEmpty()) callback.onTicketsLoaded(delta.changed, false);
+                        if (!delta.deleted.isEmpty()) callback.onTicketsRemoved(delta.deleted);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        pendingDelta = null;
+                        if (e instanceof ApiClient.HttpException && ((ApiClient.HttpException) e).code == 400) {
+                            // Token rejected by the backend: fall back to a full reload
+                            syncToken = null;
+                            pager.loadInitial(persisting(callback));
+                        } else {
+                            callback.onError(e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Continues the paged load where it stopped (also across screen re-openings).
+     */
+    @Override
+    public void loadMore(Callback callback) {
+        if (!restored || restoring) return; // The paging position is not known yet
+        pager.loadMore(persisting(callback));
+    }
+
+    @Override
+    public boolean hasMore() {
+        return restored && pager.hasMore();
+    }
+
+    @Override
+    public boolean isLoading() {
+        return restoring || pendingDelta != null || pager.isLoading();
+    }
+
+    @Override
+    public void cancel() {
+        pager.cancel();
+        cancelDelta();
+        restoreCallback = null;
+    }
+
+    /**
+     * Stores a fresher copy of a single ticket (e.g. fetched by the details screen).
+     */
+    public void put(Ticket ticket) {
+        persistTickets(() -> repository.upsert(Collections.singletonList(ticket)));
+    }
+
+    /**
+     * Forgets a ticket the user has just deleted.
+     */
+    public void remove(int ticketId) {
+        photos.invalidate(ticketId);
+        thumbnails.invalidate(ticketId);
+        persistTickets(() -> repository.delete(Collections.singletonList(ticketId)));
+    }
+
+    /**
+     * Drops all stored tickets and the sync state, e.g. when the user logs out.
+     */
+    public void clear() {
+        cancel();
+        generation++;
+        restored = true;  // Nothing left on disk worth reading
+        restoring = false;
+        syncToken = null;
+        pager.reset();
+        photos.clear();
+        thumbnails.clear();
+        persistTickets(repository::clear);
+    }
+
+    /**
+     * Reads the stored tickets (and, the first time, the sync state) on the disk thread,
+     * then delivers them and resumes the pending load.
+     */
+    private void restore() {
+        restoring = true;
+        int expected = generation;
+        boolean readState = !restored;
+        diskExecutor.execute(() -> {
+            List<Ticket> stored;
+            String token = null, cursor = null, more = null;
+            try {
+                stored = repository.getAll();
+                if (readState) {
+                    token = repository.getState(TicketRepository.STATE_SYNC_TOKEN);
+                    cursor = repository.getState(TicketRepository.STATE_NEXT_CURSOR);
+                    more = repository.getState(TicketRepository.STATE_HAS_MORE);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to read stored tickets", e);
+                stored = Collections.emptyList();
+                token = cursor = more = null;
+            }
+
+            List<Ticket> result = stored;
+            String storedToken = token, storedCursor = cursor, storedHasMore = more;
+            mainHandler.post(() -> {
+                if (expected != generation) return; // clear() ran meanwhile
+                restoring = false;
+                if (readState) {
+                    restored = true;
+                    if (storedToken != null) {
+                        syncToken = storedToken;
+                        pager.restore(storedCursor, !"false".equals(storedHasMore));
+                    }
+                }
+
+                Callback callback = restoreCallback;
+                restoreCallback = null;
+                if (callback == null) return;
+                // Nothing stored and never synced: wait for the first page instead of an empty list
+                if (syncToken != null || !result.isEmpty()) callback.onTicketsLoaded(result, true);
+                sync(callback);
+            });
+        });
+    }
+
+    /**
+     * Runs a repository write on the disk thread. Failures are only logged:
+     * the store is a cache and the next sync rewrites it.
+     */
+    private void persist(Runnable write) {
+        diskExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to update stored tickets", e);
+            }
+        });
+    }
+
+    /**
+     * Like {@link #persist}, for writes that change the stored tickets: the expiry alarm is
+     * re-armed afterwards, since the next ticket to expire may have changed.
+     */
+    private void persistTickets(Runnable write) {
+        persist(() -> {
+            write.run();
+            expiryScheduler.reschedule();
+        });
+    }
+
+    /**
+     * Saves the current sync token and paging position next to the tickets.
+     */
+    private void persistSyncState() {
+        String token = syncToken;
+        String cursor = pager.getNextCursor();
+        String more = String.valueOf(pager.hasMore());
+        persist(() -> {
+            repository.putState(TicketRepository.STATE_SYNC_TOKEN, token);
+            repository.putState(TicketRepository.STATE_NEXT_CURSOR, cursor);
+            repository.putState(TicketRepository.STATE_HAS_MORE, more);
+        });
+    }
+
+    private void cancelDelta() {
+        if (pendingDelta != null) {
+            pendingDelta.cancel(true);
+            pendingDelta = null;
+        }
+    }
+
+    /**
+     * Wraps a callback so that every page is written to the store before being passed on.
+     * Pages are forwarded unchanged: a ticket already known (e.g. received earlier through
+     * a delta) replaces its previous version by ID on the receiving side.
+     */
+    private Callback persisting(Callback callback) {
+        return new Callback() {
+            @Override
+            public void onTicketsLoaded(List<Ticket> page, boolean reset) {
+                if (reset) {
+                    syncToken = pager.getSyncToken();
+                    persistTickets(() -> repository.replaceAll(page));
+                } else {
+                    persistTickets(() -> repository.upsert(page));
+                }
+                persistSyncState();
+                callback.onTicketsLoaded(page, reset);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        };
+    }
+
+    /**
+     * Writes a delta to the store and advances the sync token.
+     */
+    private void apply(Delta delta) {
+        syncToken = delta.syncToken;
+        if (!delta.deleted.isEmpty()) {
+            photos.invalidate(delta.deleted);
+            thumbnails.invalidate(delta.deleted);
+        }
+        persistTickets(() -> {
+            repository.upsert(delta.changed);
+            repository.delete(delta.deleted);
+        });
+        persistSyncState();
+    }
+
+    /**
+     * Streams a {@code /tickets/changes} response (runs on the client's thread pool).
+     */
+    static Delta readDelta(ApiClient.Response response) throws Exception {
+        if (!response.isSuccessful()) {
+            throw new ApiClient.HttpException(response.code(), response.readString());
+        }
+        List<Ticket> changed = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        String token = TicketJsonParser.parseChanges(response.body(), changed::add, deleted::add);
+        return new Delta(changed, deleted, token);
+    }
+
+    /**
+     * Tickets created or modified and IDs deleted since the previous sync token.
+     */
+    static class Delta {
+        final List<Ticket> changed;
+        final List<Integer> deleted;
+        final String syncToken;
+
+        Delta(List<Ticket> changed, List<Integer> deleted, String syncToken) {
+            this.changed = changed;
+            this.deleted = deleted;
+            this.syncToken = syncToken;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.ARIUS_projekt;
+
+import java.util.Arrays;
+
+/**
+ * Columnar (struct-of-arrays) storage of the tickets shown by the list screen.
+ * <p>
+ * Instead of one {@link Ticket} object per row, every field lives in its own array:
+ * IDs and expiries are primitive {@code int}s, and all string columns hold instances from
+ * {@link StringPool#TICKETS}, so repeated plates, locations and labels are stored once no
+ * matter how many rows use them.
+ * Filtered views are plain row-index arrays into a table ({@link TicketRows}), never copies.
+ * <p>
+ * A TicketTable is an immutable snapshot produced by a {@link Builder}. Rows already
+ * published in a snapshot are never rewritten: replacing a row copies the arrays first (once
+ * per snapshot), and growing or clearing allocates new arrays, so a snapshot can be read on
+ * the main thread while the builder keeps changing on a worker thread.
+ */
+public final class TicketTable {
+
+    static final TicketTable EMPTY = new Builder().build();
+
+    final int size;
+    final int[] ids;
+    final int[] expiries;           // Epoch minutes
+    final String[] licenses;        // Display values
+    final String[] locations;
+    final String[] licenseKeys;     // Lower-cased search keys
+    final String[] locationKeys;
+    final String[] expiryLabels;    // Precomputed row labels
+    final String[] licenseLabels;
+    final String[] locationLabels;
+
+    private TicketTable(Builder builder) {
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.expiries = builder.expiries;
+        this.licenses = builder.licenses;
+        this.locations = builder.locations;
+        this.licenseKeys = builder.licenseKeys;
+        this.locationKeys = builder.locationKeys;
+        this.expiryLabels = builder.expiryLabels;
+        this.licenseLabels = builder.licenseLabels;
+        this.locationLabels = builder.locationLabels;
+    }
+
+    /**
+     * Materializes a row as a {@link Ticket}, e.g. to pass it to the details screen.
+     */
+    public Ticket ticket(int row) {
+        return new Ticket(ids[row], expiries[row], licenses[row], locations[row]);
+    }
+
+    /**
+     * Mutable table owned by a single thread.
+     */
+    static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        int size;
+        int[] ids;
+        int[] expiries;
+        String[] licenses;
+        String[] locations;
+        String[] licenseKeys;
+        String[] locationKeys;
+        String[] expiryLabels;
+        String[] licenseLabels;
+        String[] locationLabels;
+        private boolean published; // The arrays are shared with a snapshot
+
+        Builder() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Appends a ticket.
+         *
+         * @return The row the ticket was stored at.
+         */
+        int append(Ticket ticket) {
+            if (size == ids.length) resize(ids.length * 2);
+            write(size, ticket);
+            return size++;
+        }
+
+        /**
+         * Replaces the ticket stored at a row, e.g. with a newer version of it.
+         */
+        void set(int row, Ticket ticket) {
+            if (published) resize(ids.length); // Snapshots keep the previous version
+            write(row, ticket);
+        }
+
+        private void write(int row, Ticket ticket) {
+            ids[row] = ticket.id;
+            expiries[row] = ticket.expiryMinute;
+            // Ticket strings are pooled already; the lower-cased search keys are pooled here
+            licenses[row] = ticket.license;
+            locations[row] = ticket.location;
+            licenseKeys[row] = StringPool.TICKETS.intern(TicketFilterEngine.normalize(ticket.license));
+            locationKeys[row] = StringPool.TICKETS.intern(TicketFilterEngine.normalize(ticket.location));
+            expiryLabels[row] = ticket.expiryLabel;
+            licenseLabels[row] = ticket.licenseLabel;
+            locationLabels[row] = ticket.locationLabel;
+        }
+
+        /**
+         * Drops all rows. Snapshots built earlier keep their data.
+         */
+        void clear() {
+            size = 0;
+            allocate(INITIAL_CAPACITY);
+        }
+
+        /**
+         * @return An immutable snapshot of the rows appended so far (no data is copied).
+         */
+        TicketTable build() {
+            published = true;
+            return new TicketTable(this);
+        }
+
+        private void allocate(int capacity) {
+            ids = new int[capacity];
+            expiries = new int[capacity];
+            licenses = new String[capacity];
+            locations = new String[capacity];
+            licenseKeys = new String[capacity];
+            locationKeys = new String[capacity];
+            expiryLabels = new String[capacity];
+            licenseLabels = new String[capacity];
+            locationLabels = new String[capacity];
+            published = false;
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            expiries = Arrays.copyOf(expiries, capacity);
+            licenses = Arrays.copyOf(licenses, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            licenseKeys = Arrays.copyOf(licenseKeys, capacity);
+            locationKeys = Arrays.copyOf(locationKeys, capacity);
+            expiryLabels = Arrays.copyOf(expiryLabels, capacity);
+            licenseLabels = Arrays.copyOf(licenseLabels, capacity);
+            locationLabels = Arrays.copyOf(locationLabels, capacity);
+            published = false;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.ARIUS_projekt;
+
+import java.util.TimeZone;
+
+/**
+ * Conversions between the backend's expiry strings and the compact epoch-minute value
+ * stored in {@link Ticket}.
+ * <p>
+ * An epoch minute is the number of minutes between 1970-01-01 00:00 and the expiry
+ * <em>as written on the ticket</em> (wall-clock time, no time zone applied), so converting
+ * it back always yields the same date and time the user entered. Hand-rolled civil-date
+ * arithmetic is used because java.time requires API 26 and minSdk is 24.
+ */
+final class TicketTime {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Returned by the parsers for missing or malformed input
+    static final int INVALID = Integer.MIN_VALUE;
+
+    private TicketTime() {
+    }
+
+    /**
+     * @param date Date in the "yyyy-MM-dd" format.
+     * @param time Time in the "HH:mm" or "HH:mm:ss" format (seconds are dropped).
+     * @return The expiry as an epoch minute, or {@link #INVALID}.
+     */
+    static int toEpochMinute(String date, String time) {
+        int day = parseDate(date);
+        int minute = parseTime(time);
+        if (day == INVALID || minute == INVALID) return INVALID;
+        return day * MINUTES_PER_DAY + minute;
+    }
+
+    /**
+     * @return The days since 1970-01-01 of a "yyyy-MM-dd" date, or {@link #INVALID}.
+     */
+    static int parseDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return INVALID;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return INVALID;
+        return daysFromCivil(year, month, day);
+    }
+
+    /**
+     * @return The minute of the day of an "HH:mm" or "HH:mm:ss" time, or {@link #INVALID}.
+     */
+    static int parseTime(String time) {
+        if (time == null || time.length() < 5 || time.charAt(2) != ':') return INVALID;
+        int hour = digits(time, 0, 2);
+        int minute = digits(time, 3, 5);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return INVALID;
+        return hour * 60 + minute;
+    }
+
+    /**
+     * @return The current wall-clock time in the device's time zone as an epoch minute,
+     * comparable with ticket expiries.
+     */
+    static int now() {
+        long millis = System.currentTimeMillis();
+        return (int) Math.floorDiv(millis + TimeZone.getDefault().getOffset(millis), 60_000L);
+    }
+
+    /**
+     * @return The current time in UTC as an epoch minute. The backend's expiry sweep reads
+     * ticket expiries as UTC, and the on-device expiry alerts follow it.
+     */
+    static int nowUtc() {
+        return (int) Math.floorDiv(System.currentTimeMillis(), 60_000L);
+    }
+
+    /**
+     * @return The instant (milliseconds since the epoch, UTC) at which the device clock
+     * shows the given wall-clock epoch minute.
+     */
+    static long toMillis(int epochMinute) {
+        long local = epochMinute * 60_000L;
+        TimeZone zone = TimeZone.getDefault();
+        long guess = local - zone.getOffset(local);
+        return local - zone.getOffset(guess); // Second pass settles DST transitions
+    }
+
+    static int epochDay(int epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    static int minuteOfDay(int epochMinute) {
+        return Math.floorMod(epochMinute, MINUTES_PER_DAY);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's algorithm).
+     */
+    static int daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        int era = Math.floorDiv(year, 400);
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Inverse of {@link #daysFromCivil}.
+     *
+     * @return The date packed as {@code year * 10000 + month * 100 + day}.
+     */
+    static int civilFromDays(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * @return The non-negative decimal value of the characters in [start, end), or -1.
+     */
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.ARIUS_projekt;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide job that prepares a new ticket's photo and uploads the ticket.
+ * <p>
+ * The whole flow (encoding the photo and its list thumbnail with {@link TicketPhotoProcessor},
+ * then streaming the multipart request) runs on a background thread. The job belongs to the
+ * process, not to {@link AddTicketActivity}, so it keeps running when the activity is
+ * recreated after a configuration change: the new activity attaches its {@link Listener}
+ * and immediately receives the current progress, or the outcome if the upload finished
+ * while no screen was attached.
+ * <p>
+ * The photo is prepared speculatively: {@link #preparePhoto} starts decoding and compressing
+ * it as soon as it is picked, while the user is still filling in the form, and the result is
+ * kept keyed by its URI. When the ticket is saved with the same photo the upload only waits
+ * for (or directly sends) the prepared bytes. Picking another photo cancels the stale work.
+ * <p>
+ * After a successful upload both images are stored in the {@link TicketImageCache}s under the
+ * new ticket's ID, so they are never downloaded back.
+ * <p>
+ * An upload can be cancelled at any point. Cancelling while the body is being written aborts
+ * the request; once the whole body has been sent the server may still save the ticket.
+ * <p>
+ * All public methods must be called on the main thread; callbacks are delivered there too.
+ */
+public class TicketUploader {
+
+    private static final String TAG = "TicketUploader";
+
+    /**
+     * Progress value reported while the photo is being prepared (no percentage known yet).
+     */
+    public static final int PROGRESS_PREPARING = -1;
+
+    // Slice size of body writes, so progress advances smoothly even for one large photo write
+    private static final int PROGRESS_SLICE = 16 * 1024;
+
+    private static final String DEFAULT_ERROR = "Błąd połączenia z serwerem"; // "Server connection error"
+    private static final String CANCELLED = "Anulowano zapisywanie biletu"; // "Ticket saving cancelled"
+
+    /**
+     * Receives the state of the upload on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param percent Share of the request body sent so far (0-100),
+         *                or {@link #PROGRESS_PREPARING} while the photo is being prepared.
+         */
+        void onProgress(int percent);
+
+        /**
+         * @param success True if the ticket was saved (201 Created).
+         * @param message Message to show to the user.
+         */
+        void onFinished(boolean success, String message);
+    }
+
+    private static TicketUploader instance;
+
+    private final Context appContext;
+    private final ApiClient client;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "TicketUploader"));
+    // Separate thread, so a photo can be prepared while an earlier upload is still being sent
+    private final ExecutorService photoExecutor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "TicketUploader-photo"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Nullable
+    private Uri preparedUri;            // Photo being (or already) prepared speculatively
+    @Nullable
+    private Future<TicketPhotoProcessor.Encoded> preparedPhoto;
+
+    @Nullable
+    private Job job;                    // Upload in progress
+    @Nullable
+    private Listener listener;          // Screen currently attached
+    private int progress;               // Last progress reported by the running job
+    @Nullable
+    private Boolean undeliveredSuccess; // Outcome of a job that finished with no screen attached
+    @Nullable
+    private String undeliveredMessage;
+
+    private TicketUploader(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.client = ApiClient.getInstance(context);
+    }
+
+    /**
+     * Returns the process-wide uploader instance.
+     *
+     * @param context Any context; only the application context is retained.
+     */
+    public static TicketUploader getInstance(Context context) {
+        if (instance == null) {
+            instance = new TicketUploader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts uploading a new ticket.
+     *
+     * @param imageUri The photo to attach, or null for none.
+     * @return False if another upload is still running (nothing is started).
+     */
+    public boolean start(String date, String time, String license, String location, @Nullable Uri imageUri) {
+        if (job != null) return false;
+        undeliveredSuccess = null;
+        undeliveredMessage = null;
+        Future<TicketPhotoProcessor.Encoded> photo = imageUri != null && imageUri.equals(preparedUri) ? preparedPhoto : null;
+        boolean photoReady = imageUri == null || (photo != null && photo.isDone());
+        progress = photoReady ? 0 : PROGRESS_PREPARING;
+        job = new Job(date, time, license, location, imageUri, photo);
+        job.future = executor.submit(job);
+        if (listener != null) listener.onProgress(progress);
+        return true;
+    }
+
+    /**
+     * Starts preparing a photo for upload in the background, ahead of {@link #start}.
+     * Work for a previously picked photo is cancelled; passing null just drops it.
+     *
+     * @param imageUri The photo just picked, or null if the form no longer has one.
+     */
+    public void preparePhoto(@Nullable Uri imageUri) {
+        if (imageUri != null && imageUri.equals(preparedUri)) return; // Already prepared or in progress
+        if (preparedPhoto != null) preparedPhoto.cancel(true);
+        preparedUri = imageUri;
+        preparedPhoto = imageUri != null
+                ? photoExecutor.submit(() -> TicketPhotoProcessor.encodeForUpload(appContext, imageUri))
+                : null;
+    }
+
+    /**
+     * Cancels the running upload, if any. The listener is told at once.
+     */
+    public void cancel() {
+        if (job == null) return;
+        job.cancelled = true;
+        job.future.cancel(true);
+        finish(job, false, CANCELLED);
+    }
+
+    /**
+     * @return True while an upload is in progress.
+     */
+    public boolean isRunning() {
+        return job != null;
+    }
+
+    /**
+     * Attaches a screen. It receives the current progress if an upload is running, or the
+     * outcome of an upload that finished while no screen was attached.
+     */
+    public void attach(Listener listener) {
+        this.listener = listener;
+        if (job != null) {
+            listener.onProgress(progress);
+        } else if (undeliveredMessage != null) {
+            boolean success = undeliveredSuccess;
+            String message = undeliveredMessage;
+            undeliveredSuccess = null;
+            undeliveredMessage = null;
+            listener.onFinished(success, message);
+        }
+    }
+
+    /**
+     * Detaches a screen; the upload keeps running.
+     */
+    public void detach(Listener listener) {
+        if (this.listener == listener) this.listener = null;
+    }
+
+    /**
+     * Publishes progress of a job from its worker thread.
+     */
+    private void postProgress(Job source, int percent) {
+        mainHandler.post(() -> {
+            if (job != source) return; // Cancelled or superseded
+            progress = percent;
+            if (listener != null) listener.onProgress(percent);
+        });
+    }
+
+    /**
+     * Ends a job and reports its outcome. Main thread only.
+     */
+    private void finish(Job source, boolean success, String message) {
+        if (job != source) return; // Already reported (e.g. cancelled)
+        job = null;
+        if (listener != null) {
+            listener.onFinished(success, message);
+        } else {
+            undeliveredSuccess = success;
+            undeliveredMessage = message;
+        }
+    }
+
+    /**
+     * A single upload, run on the executor.
+     */
+    private final class Job implements Runnable {
+
+        private final String date, time, license, location;
+        @Nullable
+        private final Uri imageUri;
+        @Nullable
+        private final Future<TicketPhotoProcessor.Encoded> preparedPhoto; // Speculative preparation of imageUri, if any
+        volatile boolean cancelled;
+        Future<?> future;
+
+        Job(String date, String time, String license, String location,
+            @Nullable Uri imageUri, @Nullable Future<TicketPhotoProcessor.Encoded> preparedPhoto) {
+            this.date = date;
+            this.time = time;
+            this.license = license;
+            this.location = location;
+            this.imageUri = imageUri;
+            this.preparedPhoto = preparedPhoto;
+        }
+
+        @Override
+        public void run() {
+            String[] errorMsg = {DEFAULT_ERROR};
+            int[] ticketId = {-1};
+            boolean success = false;
+            TicketPhotoProcessor.Encoded photo = null;
+            try {
+                MultipartBody payload = new MultipartBody()
+                        .addField("vehicle_number", license)
+                        .addField("location", location)
+                        .addField("date", date)
+                        .addField("time", time)
+                        .addField("notified", "false")
+                        .addField("uploaded_at", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()));
+                photo = imageUri != null ? photo(imageUri) : null;
+                if (photo != null) {
+                    // Downsampled and size-capped already, so the lengths are known and the body
+                    // is streamed with a fixed length
+                    byte[] image = photo.photo;
+                    byte[] thumbnail = photo.thumbnail;
+                    payload.addFile("image", "ticket.jpg", "image/jpeg", image.length, out -> out.write(image));
+                    payload.addFile("thumbnail", "thumbnail.jpg", "image/jpeg", thumbnail.length, out -> out.write(thumbnail));
+                }
+                if (cancelled) return;
+                postProgress(this, 0);
+
+                // Send the payload through the shared client (JWT is attached automatically)
+                success = client.execute(
+                        ApiClient.Request.post(ApiClient.Endpoint.TICKET_CREATE, new ProgressBody(payload, this)),
+                        response -> {
+                            String body = response.readString();
+                            Log.d(TAG, "Response from server: " + body);
+
+                            if (response.code() == 201) {
+                                ticketId[0] = new JSONObject(body).optInt("id", -1);
+                                return true;
+                            }
+                            JSONObject errorJson = new JSONObject(body);
+                            errorMsg[0] = errorJson.optString("msg", "Błąd podczas zapisywania danych");
+                            return false;
+                        });
+            } catch (Exception e) {
+                if (cancelled) return; // Aborted on purpose; the cancellation was reported already
+                Log.e(TAG, "Error sending ticket", e);
+            }
+            if (success && photo != null && ticketId[0] != -1) {
+                // Seed the caches, so the new ticket's photo is never downloaded back
+                TicketImageCache.photos(appContext).store(ticketId[0], photo.photo);
+                TicketImageCache.thumbnails(appContext).store(ticketId[0], photo.thumbnail);
+            }
+            boolean saved = success;
+            mainHandler.post(() -> finish(this, saved, saved ? "Dodano bilet" : errorMsg[0])); // "Ticket added"
+        }
+
+        /**
+         * @return The downsampled JPEG and its thumbnail, or null if it fails (the ticket is then
+         * sent without a photo).
+         * @throws InterruptedException If the upload was cancelled while waiting for the photo.
+         */
+        @Nullable
+        private TicketPhotoProcessor.Encoded photo(Uri uri) throws InterruptedException {
+            if (preparedPhoto != null) {
+                try {
+                    return preparedPhoto.get(); // Usually finished while the form was being filled in
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Error preparing image URI", e.getCause());
+                    return null;
+                } catch (CancellationException e) {
+                    // Dropped after the upload started; prepare it here instead
+                }
+            }
+            try {
+                return TicketPhotoProcessor.encodeForUpload(appContext, uri);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error preparing image URI", e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Request body that reports how much of the wrapped body has been written and aborts
+     * the write when its job is cancelled.
+     */
+    private final class ProgressBody implements ApiClient.RequestBody {
+
+        private final ApiClient.RequestBody body;
+        private final Job owner;
+
+        ProgressBody(ApiClient.RequestBody body, Job owner) {
+            this.body = body;
+            this.owner = owner;
+        }
+
+        @Override
+        public String contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            long total = body.contentLength();
+            body.writeTo(new FilterOutputStream(out) {
+                private long written;
+                private int reported;
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    while (len > 0) {
+                        if (owner.cancelled) throw new InterruptedIOException("Upload cancelled");
+                        int slice = Math.min(len, PROGRESS_SLICE);
+                        out.write(b, off, slice);
+                        off += slice;
+                        len -= slice;
+                        written += slice;
+                        // Only whole-percent changes are posted to the main thread
+                        int percent = total > 0 ? (int) (written * 100 / total) : 0;
+                        if (percent != reported) {
+                            reported = percent;
+                            postProgress(owner, percent);
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
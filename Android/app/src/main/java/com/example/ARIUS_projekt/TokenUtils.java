@@ -9,10 +9,6 @@ import androidx.annotation.NonNull;
 
 import org.json.JSONObject;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
-
 /**
  * Utility class responsible for sending the Firebase Cloud Messaging (FCM) token
  * to the backend server after successful login.
@@ -65,29 +61,16 @@ public class TokenUtils {
         @Override
         protected Boolean doInBackground(Void... voids) {
             try {
-                // Create an authenticated HTTP POST connection using GeneralUtils
-                HttpURLConnection conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/auth/register_token",
-                        "POST",
-                        5000,
-                        15000,
-                        jwtToken
-                );
-
                 // Build JSON payload with the FCM token
                 JSONObject json = new JSONObject();
                 json.put("fcm_token", fcmToken);
 
-                // Write the JSON data to the request output stream
-                OutputStream os = conn.getOutputStream();
-                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                os.flush();
-                os.close();
-
-                // Log and evaluate the response code
-                int responseCode = conn.getResponseCode();
+                // Send it through the shared client with the explicitly provided JWT token
+                int responseCode = ApiClient.getInstance(context).execute(
+                        ApiClient.Request.post(ApiClient.Endpoint.REGISTER_TOKEN, json).withToken(jwtToken),
+                        ApiClient.Response::code
+                );
                 Log.d(TAG, "FCM token send response code: " + responseCode);
-                conn.disconnect();
 
                 // Consider the operation successful if server responded with 2xx
                 return responseCode >= 200 && responseCode < 300;
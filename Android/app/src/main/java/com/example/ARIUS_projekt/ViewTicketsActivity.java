@@ -1,11 +1,8 @@
 package com.example.ARIUS_projekt;
 
-import android.annotation.SuppressLint;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -15,34 +12,46 @@ import android.view.View;
 import android.widget.*;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.util.*;
 
 /**
- * This activity displays a list of parking tickets retrieved from the backend server.
- * Users can filter tickets using several input fields (date, time, license, location).
+ * This activity displays a list of parking tickets retrieved from the backend server
+ * in a RecyclerView. Tickets are loaded page by page: the first page is shown immediately and further
+ * pages are fetched as the user scrolls towards the end of the list.
+ * Users can filter tickets using several input fields (date, time, license, location);
+ * filtering runs on a background worker so typing never blocks the UI thread.
+ * The list can also be ordered by expiry ("expiring next") or limited to the tickets
+ * expiring within the next two hours.
  * They can also tap on a ticket to view more details or delete it.
  */
 public class ViewTicketsActivity extends AppCompatActivity {
 
     // UI elements
-    ListView ticketListView;
+    RecyclerView ticketRecyclerView;
     EditText editTextDate, editTextTime, editTextLicense, editTextLocation;
     TextView emptyView;
+    Spinner spinnerExpiry;
 
     // Adapter and data structures for ticket list
     TicketAdapter adapter;
-    ArrayList<Ticket> ticketList, filteredList;
+    TicketFilterWorker filterWorker; // Owns the indexed copy of every loaded ticket
+    TicketSyncEngine dataSource;
+    CountdownTicker countdownTicker; // Refreshes the "expires in" text of visible rows
 
     // Constants
     private static final int REQUEST_TICKET_DETAILS = 1;
+    private static final int PREFETCH_DISTANCE = 10; // Rows left before the next page is requested
+    private static final int RECYCLED_ROWS = 20;     // Spare row views kept for fast flings
+    private static final int CACHED_ROWS = 6;        // Off-screen rows kept bound for scrolling back
+    private static final int EXPIRING_SOON_MINUTES = 2 * 60;
+
+    // Positions of the spinnerExpiry entries
+    private static final int SHOW_ALL = 0;
+    private static final int SHOW_EXPIRING_NEXT = 1;
+    private static final int SHOW_EXPIRING_SOON = 2;
     private static final String TAG = "ViewTicketsActivity";
 
     @Override
@@ -56,121 +65,105 @@ public class ViewTicketsActivity extends AppCompatActivity {
         }
 
         // Initialize views from layout
-        ticketListView = findViewById(R.id.listViewTickets);
+        ticketRecyclerView = findViewById(R.id.recyclerViewTickets);
         editTextDate = findViewById(R.id.editTextDate);
         editTextTime = findViewById(R.id.editTextTime);
         editTextLicense = findViewById(R.id.editTextLicense);
         editTextLocation = findViewById(R.id.editTextLocation);
         emptyView = findViewById(R.id.emptyView);
+        spinnerExpiry = findViewById(R.id.spinnerExpiry);
 
-        // Initialize lists and set adapter
-        ticketList = new ArrayList<>();
-        filteredList = new ArrayList<>();
-        adapter = new TicketAdapter(this, filteredList);
-        ticketListView.setAdapter(adapter);
+        // Set up the list; tapping a ticket opens its details
+        filterWorker = new TicketFilterWorker(this::showFilteredTickets);
+        adapter = new TicketAdapter(this::openTicketDetails, TicketImageCache.thumbnails(this));
+        countdownTicker = new CountdownTicker(adapter::tickCountdowns);
+        setupRecyclerView();
 
-        // Fetch ticket list from the server
+        // Show known tickets and sync changes, or fetch the first page on the very first visit;
+        // more pages load while scrolling
+        dataSource = TicketSyncEngine.getInstance(this);
         fetchTicketsFromBackend();
+        setupEndlessScroll();
 
         // Setup interactive filtering logic for all input fields
         setupFilterInputs();
+    }
 
-        // Handle item click to open ticket details
-        ticketListView.setOnItemClickListener((parent, view, position, id) -> {
-            Ticket ticket = filteredList.get(position);
-            Intent intent = new Intent(ViewTicketsActivity.this, TicketDetailsActivity.class);
-            intent.putExtra("ticket_id", ticket.id);
-            startActivityForResult(intent, REQUEST_TICKET_DETAILS);
-        });
+    /**
+     * Configures the RecyclerView: rows have a fixed-size container, a larger pool of spare
+     * row views and a few bound off-screen rows; upcoming rows are prefetched while idle.
+     */
+    private void setupRecyclerView() {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        layoutManager.setItemPrefetchEnabled(true);
+        ticketRecyclerView.setLayoutManager(layoutManager);
+        ticketRecyclerView.setHasFixedSize(true);
+        ticketRecyclerView.setItemViewCacheSize(CACHED_ROWS);
+        ticketRecyclerView.getRecycledViewPool().setMaxRecycledViews(0, RECYCLED_ROWS);
+        ticketRecyclerView.setAdapter(adapter);
     }
 
     /**
-     * Launches the AsyncTask to retrieve the list of tickets from the server.
+     * Opens the details screen of the tapped ticket.
      */
-    private void fetchTicketsFromBackend() {
-        new FetchTicketsTask().execute();
+    private void openTicketDetails(Ticket ticket) {
+        Intent intent = new Intent(ViewTicketsActivity.this, TicketDetailsActivity.class);
+        intent.putExtra("ticket_id", ticket.id);
+        intent.putExtra("ticket", ticket); // Parcelable: details render without waiting for the network
+        startActivityForResult(intent, REQUEST_TICKET_DETAILS);
     }
 
     /**
-     * AsyncTask to fetch the full ticket list from the backend using JWT authorization.
-     * It parses the response into Ticket objects and updates the UI accordingly.
+     * Loads the first page of tickets; further pages are requested by the scroll listener.
      */
-    @SuppressLint("StaticFieldLeak")
-    private class FetchTicketsTask extends AsyncTask<Void, Void, List<Ticket>> {
-        private int responseCode = -1;
+    private void fetchTicketsFromBackend() {
+        dataSource.loadInitial(pageCallback);
+    }
 
-        @Override
-        protected List<Ticket> doInBackground(Void... voids) {
-            List<Ticket> result = new ArrayList<>();
-            try {
-                // Get JWT token from shared preferences
-                SharedPreferences prefs = getSharedPreferences("user", MODE_PRIVATE);
-                String jwtToken = prefs.getString("token", "");
-
-                // Build authorized HTTP GET connection
-                HttpURLConnection conn = GeneralUtils.getHttpConnectionWithAuth(
-                        "http://10.0.2.2:5000/tickets",
-                        "GET",
-                        5000,
-                        30000,
-                        jwtToken
-                );
-                responseCode = conn.getResponseCode();
-
-                // Handle successful response
-                if (responseCode >= 200 && responseCode < 300) {
-                    JSONArray jsonArray = GeneralUtils.getJsonArray(conn);
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject obj = jsonArray.getJSONObject(i);
-                        result.add(new Ticket(
-                                obj.getInt("id"),
-                                obj.getString("date"),
-                                obj.getString("time"),
-                                obj.getString("vehicle_number"),
-                                obj.getString("location"),
-                                null // Image not fetched here
-                        ));
-                    }
-                } else {
-                    // Read error body and log it
-                    InputStream errorStream = conn.getErrorStream();
-                    if (errorStream != null) {
-                        BufferedReader reader = new BufferedReader(new InputStreamReader(errorStream));
-                        StringBuilder errorMsg = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) errorMsg.append(line);
-                        reader.close();
-                        Log.e(TAG, "Server error (" + responseCode + "): " + errorMsg);
-                    } else {
-                        Log.e(TAG, "Server returned error code " + responseCode + " with no body.");
-                    }
+    /**
+     * Requests the next page once the user scrolls close to the end of the list.
+     */
+    private void setupEndlessScroll() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) ticketRecyclerView.getLayoutManager();
+        ticketRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE && dataSource.hasMore()) {
+                    dataSource.loadMore(pageCallback);
                 }
+            }
+        });
+    }
 
-                conn.disconnect();
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching tickets", e);
+    /**
+     * Receives pages of tickets from the data source and shows them as soon as they arrive.
+     */
+    private final TicketDataSource.Callback pageCallback = new TicketDataSource.Callback() {
+        @Override
+        public void onTicketsLoaded(List<Ticket> tickets, boolean reset) {
+            // The worker re-applies the current filters so a new page respects what the user typed
+            if (reset) {
+                filterWorker.setTickets(tickets);
+            } else {
+                filterWorker.addTickets(tickets);
             }
+        }
 
-            return result;
+        @Override
+        public void onTicketsRemoved(List<Integer> ticketIds) {
+            filterWorker.removeAll(ticketIds);
         }
 
         @Override
-        protected void onPostExecute(List<Ticket> tickets) {
-            if (responseCode >= 200 && responseCode < 300) {
-                // Update full and filtered lists, then refresh UI
-                ticketList.clear();
-                ticketList.addAll(tickets);
-                filteredList.clear();
-                filteredList.addAll(tickets);
-                adapter.notifyDataSetChanged();
-                toggleEmptyView();
-            } else {
-                Toast.makeText(ViewTicketsActivity.this,
-                        "Server error: " + (responseCode > 0 ? responseCode : "Unknown"),
-                        Toast.LENGTH_SHORT).show();
-            }
+        public void onError(Exception e) {
+            Log.e(TAG, "Error fetching tickets", e);
+            int code = e instanceof ApiClient.HttpException ? ((ApiClient.HttpException) e).code : -1;
+            Toast.makeText(ViewTicketsActivity.this,
+                    "Server error: " + (code > 0 ? code : "Unknown"),
+                    Toast.LENGTH_SHORT).show();
         }
-    }
+    };
 
     /**
      * Sets up filter inputs (text + date/time pickers) and attaches listeners for live filtering.
@@ -209,44 +202,78 @@ public class ViewTicketsActivity extends AppCompatActivity {
         editTextTime.addTextChangedListener(filterWatcher);
         editTextLicense.addTextChangedListener(filterWatcher);
         editTextLocation.addTextChangedListener(filterWatcher);
+
+        // Expiry view selector (entries in the order of the SHOW_* constants)
+        ArrayAdapter<String> expiryModes = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item,
+                new String[]{
+                        getString(R.string.show_all_tickets),
+                        getString(R.string.show_expiring_next),
+                        getString(R.string.show_expiring_soon)});
+        expiryModes.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerExpiry.setAdapter(expiryModes);
+        spinnerExpiry.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                applyFilters();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
     }
 
     /**
-     * Applies all filters entered by the user to the ticket list and refreshes the view.
+     * Hands the filters entered by the user to the background worker (case-insensitive,
+     * debounced); the result arrives in {@link #showFilteredTickets}.
      */
     private void applyFilters() {
-        // Convert input to lowercase for case-insensitive matching
-        String dateFilter = editTextDate.getText().toString().toLowerCase(Locale.getDefault());
-        String timeFilter = editTextTime.getText().toString().toLowerCase(Locale.getDefault());
-        String licenseFilter = editTextLicense.getText().toString().toLowerCase(Locale.getDefault());
-        String locationFilter = editTextLocation.getText().toString().toLowerCase(Locale.getDefault());
-
-        filteredList.clear();
-        for (Ticket ticket : ticketList) {
-            boolean matchDate = ticket.date.toLowerCase(Locale.getDefault()).contains(dateFilter);
-            boolean matchTime = ticket.time.toLowerCase(Locale.getDefault()).contains(timeFilter);
-            boolean matchLicense = ticket.license.toLowerCase(Locale.getDefault()).contains(licenseFilter);
-            boolean matchLocation = ticket.location.toLowerCase(Locale.getDefault()).contains(locationFilter);
-
-            if (matchDate && matchTime && matchLicense && matchLocation) {
-                filteredList.add(ticket);
-            }
+        String date = editTextDate.getText().toString();
+        String time = editTextTime.getText().toString();
+        String license = editTextLicense.getText().toString();
+        String location = editTextLocation.getText().toString();
+
+        // Expiry views start at the current minute, so already expired tickets are left out
+        int now = TicketTime.now();
+        switch (spinnerExpiry.getSelectedItemPosition()) {
+            case SHOW_EXPIRING_NEXT:
+                filterWorker.setQuery(TicketFilterEngine.Query.expiring(date, time, license, location,
+                        now, TicketFilterEngine.Query.ANY));
+                break;
+            case SHOW_EXPIRING_SOON:
+                filterWorker.setQuery(TicketFilterEngine.Query.expiring(date, time, license, location,
+                        now, now + EXPIRING_SOON_MINUTES));
+                break;
+            default:
+                filterWorker.setQuery(new TicketFilterEngine.Query(date, time, license, location));
+                break;
         }
+    }
 
-        adapter.notifyDataSetChanged();
+    /**
+     * Shows a filter result computed by the worker. Only the rows named in the diff
+     * are inserted, removed or rebound.
+     */
+    private void showFilteredTickets(TicketRows rows, TicketListDiff diff) {
+        adapter.submit(rows, diff);
         toggleEmptyView();
+
+        // A filter may hide every loaded ticket; keep loading until something is visible
+        if (rows.size() == 0 && dataSource.hasMore() && !dataSource.isLoading()) {
+            dataSource.loadMore(pageCallback);
+        }
     }
 
     /**
      * Displays or hides the empty view depending on the filtered result size.
      */
     private void toggleEmptyView() {
-        if (filteredList.isEmpty()) {
+        if (adapter.getItemCount() == 0) {
             emptyView.setVisibility(View.VISIBLE);
-            ticketListView.setVisibility(View.GONE);
+            ticketRecyclerView.setVisibility(View.GONE);
         } else {
             emptyView.setVisibility(View.GONE);
-            ticketListView.setVisibility(View.VISIBLE);
+            ticketRecyclerView.setVisibility(View.VISIBLE);
         }
     }
 
@@ -256,18 +283,43 @@ public class ViewTicketsActivity extends AppCompatActivity {
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == REQUEST_TICKET_DETAILS && resultCode == RESULT_OK) {
-            Ticket deletedTicket = (Ticket) data.getSerializableExtra("deleted_ticket");
-            if (deletedTicket != null) {
-                // Remove ticket from both lists
-                ticketList.removeIf(t -> t.id == deletedTicket.id);
-                filteredList.removeIf(t -> t.id == deletedTicket.id);
-                adapter.notifyDataSetChanged();
-                toggleEmptyView();
+        if (requestCode == REQUEST_TICKET_DETAILS && resultCode == RESULT_OK && data != null) {
+            int deletedId = data.getIntExtra("deleted_ticket_id", -1);
+            if (deletedId != -1) {
+                // Remove ticket from the sync store and the filter index; the worker's diff
+                // then removes just that one row
+                dataSource.remove(deletedId);
+                filterWorker.remove(deletedId);
             }
         }
     }
 
+    /**
+     * Runs the row countdowns only while the screen is visible.
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        countdownTicker.start();
+    }
+
+    /**
+     * Pauses the countdowns in the background, so a hidden list costs no CPU.
+     */
+    @Override
+    protected void onStop() {
+        countdownTicker.stop();
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ticketRecyclerView.setAdapter(null); // Recycles the rows, releasing their thumbnails
+        dataSource.cancel(); // Drop callbacks of requests still in flight
+        filterWorker.shutdown();
+    }
+
     /**
      * Handles navigation when user presses the back arrow in the ActionBar.
      */
@@ -0,0 +1,79 @@
+package com.example.ARIUS_projekt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Deduplication tests of {@link StringPool}: a fleet account with few plates and locations,
+ * with every ticket's strings created afresh the way the JSON parser creates them.
+ * <p>
+ * Sizes are not measured on the heap; they are estimated per distinct String instance the
+ * tickets reference (by identity), so the checks are the same on every run.
+ */
+public class StringPoolTest {
+
+    private static final int TICKETS = 100_000;
+    private static final int PLATES = 40;
+    private static final int LOCATIONS = 5;
+    private static final int EXPIRIES = 30;
+
+    @Test
+    public void pooledTicketsShareStrings() {
+        List<Ticket> tickets = new ArrayList<>(TICKETS);
+        long unpooledBytes = 0;
+        for (int i = 0; i < TICKETS; i++) {
+            // new String(...): parsed values are distinct instances even when equal
+            String license = new String("WA " + (10000 + i % PLATES));
+            String location = new String("Strefa " + (char) ('A' + i % LOCATIONS) + ", ul. Marszałkowska");
+            int expiryMinute = TicketTime.toEpochMinute(String.format(Locale.ROOT, "2025-06-%02d", 1 + i % EXPIRIES), "12:00");
+            Ticket ticket = new Ticket(i, expiryMinute, license, location);
+            tickets.add(ticket);
+            // Without the pool every ticket keeps its own copy of each string
+            unpooledBytes += estimateSize(ticket.license) + estimateSize(ticket.location)
+                    + estimateSize(ticket.expiryLabel) + estimateSize(ticket.licenseLabel)
+                    + estimateSize(ticket.locationLabel);
+        }
+
+        Set<String> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Ticket ticket : tickets) {
+            retained.add(ticket.license);
+            retained.add(ticket.location);
+            retained.add(ticket.expiryLabel);
+            retained.add(ticket.licenseLabel);
+            retained.add(ticket.locationLabel);
+        }
+        long pooledBytes = 0;
+        for (String value : retained) pooledBytes += estimateSize(value);
+
+        // One instance per distinct value: plates and their labels, locations and theirs, expiry labels
+        assertEquals(2 * PLATES + 2 * LOCATIONS + EXPIRIES, retained.size());
+        assertTrue("pooled " + pooledBytes + " vs unpooled " + unpooledBytes, pooledBytes * 100 < unpooledBytes);
+    }
+
+    @Test
+    public void equalValuesAreTheSameReference() {
+        Ticket a = Ticket.fromBackend(1, "2025-06-01", "12:00", "wa  12345", "Plac Zamkowy");
+        Ticket b = Ticket.fromBackend(2, "2025-06-02", "13:00", new String("WA 12345"), new String("Plac  Zamkowy "));
+        assertSame(a.license, b.license);
+        assertSame(a.location, b.location);
+        assertSame(a.locationLabel, b.locationLabel);
+    }
+
+    /**
+     * Estimated heap footprint of a String on ART: object header, length and hash
+     * fields, then the characters (two bytes each in the worst case), 8-byte aligned.
+     */
+    private static long estimateSize(String value) {
+        return (16 + 2L * value.length() + 7) & ~7L;
+    }
+}
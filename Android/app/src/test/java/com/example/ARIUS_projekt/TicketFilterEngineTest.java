@@ -0,0 +1,97 @@
+package com.example.ARIUS_projekt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for updating and removing tickets in a {@link TicketFilterEngine}.
+ */
+public class TicketFilterEngineTest {
+
+    private static final TicketFilterEngine.Query ALL = new TicketFilterEngine.Query("", "", "", "");
+
+    private TicketFilterEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new TicketFilterEngine();
+        engine.setTickets(Arrays.asList(
+                ticket(1, "2025-06-01", "10:00", "WA 11111", "Plac Zamkowy"),
+                ticket(2, "2025-06-02", "11:00", "KR 22222", "Rynek Główny"),
+                ticket(3, "2025-06-03", "12:00", "GD 33333", "Długi Targ")));
+    }
+
+    @Test
+    public void updatedTicketKeepsItsPosition() {
+        engine.addTickets(Collections.singletonList(ticket(1, "2025-06-04", "13:00", "PO 44444", "Stary Rynek")));
+
+        assertEquals(3, engine.size());
+        assertArrayEquals(new int[]{1, 2, 3}, ids(engine.filter(ALL)));
+        assertEquals(3, engine.snapshot().size); // No row was appended
+    }
+
+    @Test
+    public void updatedTicketIsReindexed() {
+        engine.addTickets(Collections.singletonList(ticket(1, "2025-06-04", "13:00", "PO 44444", "Stary Rynek")));
+
+        assertArrayEquals(new int[0], ids(engine.filter(new TicketFilterEngine.Query("", "", "WA 1", ""))));
+        assertArrayEquals(new int[]{1}, ids(engine.filter(new TicketFilterEngine.Query("", "", "PO 4", ""))));
+        assertArrayEquals(new int[0], ids(engine.filter(new TicketFilterEngine.Query("2025-06-01", "", "", ""))));
+        assertArrayEquals(new int[]{1}, ids(engine.filter(new TicketFilterEngine.Query("2025-06-04", "13:00", "", ""))));
+        assertArrayEquals(new int[]{2, 3, 1}, ids(engine.filter(TicketFilterEngine.Query.expiring("", "", "", "",
+                TicketFilterEngine.Query.ANY, TicketFilterEngine.Query.ANY))));
+    }
+
+    @Test
+    public void updateDoesNotChangeEarlierSnapshot() {
+        TicketTable before = engine.snapshot();
+        engine.addTickets(Collections.singletonList(ticket(2, "2025-06-04", "13:00", "PO 44444", "Stary Rynek")));
+
+        assertEquals("KR 22222", before.licenses[1]);
+        assertEquals("PO 44444", engine.snapshot().licenses[1]);
+    }
+
+    @Test
+    public void cachedResultFollowsUpdate() {
+        TicketFilterEngine.Query plate = new TicketFilterEngine.Query("", "", "WA", "");
+        assertArrayEquals(new int[]{1}, ids(engine.filter(plate)));
+
+        engine.addTickets(Collections.singletonList(ticket(2, "2025-06-02", "11:00", "WA 22222", "Rynek Główny")));
+
+        // Refines the cached query, whose result did not contain ticket 2
+        assertArrayEquals(new int[]{2}, ids(engine.filter(new TicketFilterEngine.Query("", "", "WA 2", ""))));
+    }
+
+    @Test
+    public void removedRowsAreCompacted() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int id = 100; id < 400; id++) tickets.add(ticket(id, "2025-06-01", "10:00", "WA " + id, "Plac Zamkowy"));
+        engine.addTickets(tickets);
+        for (int id = 100; id < 400; id++) engine.remove(id);
+
+        assertEquals(3, engine.size());
+        assertArrayEquals(new int[]{1, 2, 3}, ids(engine.filter(ALL)));
+        assertTrue(engine.snapshot().size < 100); // Hidden rows were dropped
+        assertArrayEquals(new int[]{1}, ids(engine.filter(new TicketFilterEngine.Query("", "", "WA", ""))));
+    }
+
+    private int[] ids(int[] positions) {
+        TicketTable table = engine.snapshot();
+        int[] ids = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) ids[i] = table.ids[positions[i]];
+        return ids;
+    }
+
+    private static Ticket ticket(int id, String date, String time, String license, String location) {
+        return Ticket.fromBackend(id, date, time, license, location);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ARIUS_projekt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the normalization of the strings a {@link Ticket} is built from.
+ */
+public class TicketTest {
+
+    @Test
+    public void normalizeSpaces_keepsRegularValue() {
+        String value = "Plac Zamkowy 1";
+        assertSame(value, Ticket.normalizeSpaces(value)); // No copy is made
+    }
+
+    @Test
+    public void normalizeSpaces_trimsAndCollapsesAsciiWhitespace() {
+        assertEquals("Plac Zamkowy 1", Ticket.normalizeSpaces("  Plac \t Zamkowy\n1 "));
+    }
+
+    @Test
+    public void normalizeSpaces_trimsTrailingUnicodeWhitespace() {
+        assertEquals("Plac Zamkowy", Ticket.normalizeSpaces("Plac Zamkowy\u3000"));
+        assertEquals("Plac Zamkowy", Ticket.normalizeSpaces("Plac Zamkowy \u2003"));
+    }
+
+    @Test
+    public void normalizeSpaces_trimsLeadingUnicodeWhitespace() {
+        assertEquals("Plac Zamkowy", Ticket.normalizeSpaces("\u2003Plac Zamkowy"));
+    }
+
+    @Test
+    public void normalizeSpaces_collapsesInnerUnicodeWhitespace() {
+        assertEquals("Plac Zamkowy", Ticket.normalizeSpaces("Plac\u3000Zamkowy"));
+        assertEquals("Plac Zamkowy", Ticket.normalizeSpaces("Plac \u2003 Zamkowy"));
+    }
+
+    @Test
+    public void normalizeSpaces_handlesBlankAndNull() {
+        assertEquals("", Ticket.normalizeSpaces(null));
+        assertEquals("", Ticket.normalizeSpaces(""));
+        assertEquals("", Ticket.normalizeSpaces(" \u3000 "));
+    }
+
+    @Test
+    public void fromBackend_acceptsLocationEndingInUnicodeSpace() {
+        Ticket ticket = Ticket.fromBackend(7, "2025-06-01", "12:30", "wa 12345\u2003", "Plac Zamkowy\u3000");
+        assertEquals("WA 12345", ticket.license);
+        assertEquals("Plac Zamkowy", ticket.location);
+    }
+}
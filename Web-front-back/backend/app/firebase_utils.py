@@ -22,13 +22,14 @@ if os.getenv("FLASK_ENV") != "testing":
         firebase_admin.initialize_app(cred)
 
 
-def send_push_notification(token, title, body):
+def send_push_notification(token, title, body, data=None):
     """
     Sends a push notification to a device using Firebase Cloud Messaging (FCM).
     Args:
         token (str): FCM device token.
         title (str): Notification title.
         body (str): Notification body.
+        data (dict): Optional key-value payload delivered to the app (string values).
     """
     logger.debug(f"Wysyłam FCM do tokena: {token[:50]}...")
     logger.debug(f"Title: {title}, Body: {body}")
@@ -38,6 +39,7 @@ def send_push_notification(token, title, body):
             title=title,
             body=body,
         ),
+        data=data,
         token=token,
     )
     try:
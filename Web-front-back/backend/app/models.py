@@ -1,4 +1,6 @@
 from flask_sqlalchemy import SQLAlchemy
+from sqlalchemy import inspect, select, text, update
+from sqlalchemy.dialects import postgresql, sqlite
 from datetime import datetime
 
 # Initialize SQLAlchemy instance for ORM
@@ -26,5 +28,86 @@ class Ticket(db.Model):
     date = db.Column(db.Date)                                      # Expiration date of the ticket
     time = db.Column(db.Time)                                      # Expiration time of the ticket
     image_base64 = db.Column(db.Text)                              # Ticket image encoded as base64 string
+    thumbnail_base64 = db.Column(db.Text)                          # Small preview of the image (base64), shown in the ticket list
     uploaded_at = db.Column(db.DateTime, default=datetime.utcnow)  # Timestamp when the ticket was uploaded
     notified = db.Column(db.Boolean, default=False)                # Whether the user has been notified about this ticket
+    updated_at = db.Column(db.DateTime, default=datetime.utcnow,
+                           onupdate=datetime.utcnow)               # Last modification time
+    sync_version = db.Column(db.BigInteger, index=True)            # Owner's sync version of the last change, used for delta sync
+
+class DeletedTicket(db.Model):
+    """
+    Tombstone left behind when a ticket is deleted, so that clients syncing
+    incrementally (GET /tickets/changes) learn about the deletion.
+    """
+    id = db.Column(db.Integer, primary_key=True)                   # Unique tombstone ID (primary key)
+    ticket_id = db.Column(db.Integer, nullable=False)              # ID of the deleted ticket
+    user_id = db.Column(db.Integer, db.ForeignKey('user.id'), nullable=False) # Owner of the deleted ticket
+    deleted_at = db.Column(db.DateTime, default=datetime.utcnow)   # When the ticket was deleted
+    sync_version = db.Column(db.BigInteger, index=True)            # Owner's sync version of the deletion
+
+class SyncCounter(db.Model):
+    """
+    Per-user counter of changes to tickets. Every change takes the next value as its
+    sync_version; the current value is the sync token handed to clients.
+    """
+    user_id = db.Column(db.Integer, primary_key=True)              # Owner of the counted tickets
+    version = db.Column(db.BigInteger, nullable=False, default=0)  # Version of the user's latest change
+
+# INSERT ... ON CONFLICT DO NOTHING for the databases that support it
+_INSERT_IGNORING_CONFLICTS = {"postgresql": postgresql.insert, "sqlite": sqlite.insert}
+
+def next_sync_version(user_id):
+    """
+    Takes the next sync version of a user, for a change made in the current transaction.
+
+    Incrementing the counter locks the user's counter row until the transaction commits,
+    so changes of one user commit in version order: once a client has seen version N,
+    every change with a lower version has already been committed and nothing is missed,
+    however long a transaction takes between its flush and its commit.
+    """
+    insert = _INSERT_IGNORING_CONFLICTS.get(db.engine.dialect.name)
+    if insert is not None:
+        # Creates the counter on the user's first change, also when two requests race
+        db.session.execute(insert(SyncCounter).values(user_id=user_id, version=0).on_conflict_do_nothing())
+    elif db.session.get(SyncCounter, user_id) is None:
+        # Elsewhere two racing first changes of a user may fail one of them on the primary key
+        db.session.add(SyncCounter(user_id=user_id, version=0))
+        db.session.flush()
+    db.session.execute(update(SyncCounter)
+                       .where(SyncCounter.user_id == user_id)
+                       .values(version=SyncCounter.version + 1))
+    return db.session.execute(select(SyncCounter.version).where(SyncCounter.user_id == user_id)).scalar_one()
+
+def current_sync_version(user_id):
+    """
+    Returns the version of the user's latest committed change (0 if there is none).
+    Every change with this version or a lower one is visible to subsequent queries.
+    """
+    version = db.session.execute(select(SyncCounter.version).where(SyncCounter.user_id == user_id)).scalar()
+    return version or 0
+
+def upgrade_schema():
+    """
+    Brings an existing database up to date with the models. db.create_all() only creates
+    missing tables, so columns and indexes added to existing tables after the initial
+    release are added here, for any database SQLAlchemy supports. Errors are raised, so
+    the server never starts against an outdated schema.
+    """
+    inspector = inspect(db.engine)
+    preparer = db.engine.dialect.identifier_preparer
+    with db.engine.begin() as conn:
+        for table in db.metadata.sorted_tables:
+            if not inspector.has_table(table.name):
+                continue  # Created by db.create_all() with all its columns
+            columns = {column["name"] for column in inspector.get_columns(table.name)}
+            for column in table.columns:
+                if column.name not in columns:
+                    conn.execute(text(
+                        f"ALTER TABLE {preparer.format_table(table)} "
+                        f"ADD COLUMN {preparer.format_column(column)} {column.type.compile(dialect=db.engine.dialect)}"
+                    ))
+            indexes = {index["name"] for index in inspector.get_indexes(table.name)}
+            for index in table.indexes:
+                if index.name not in indexes:
+                    index.create(conn)
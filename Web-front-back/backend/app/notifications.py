@@ -80,7 +80,9 @@ def check_expired_tickets(app):
                         send_push_notification(
                             token=user.fcm_token,
                             title="Przeterminowany bilet parkingowy",
-                            body=f"Bilet dla pojazdu {ticket.vehicle_number} z lokalizacji {ticket.location} stracił ważność dnia {formatted_date} o {formatted_time}."
+                            body=f"Bilet dla pojazdu {ticket.vehicle_number} z lokalizacji {ticket.location} stracił ważność dnia {formatted_date} o {formatted_time}.",
+                            # Lets the app replace its own expiry alert for the same ticket
+                            data={"ticket_id": str(ticket.id)}
                         )
                         logger.info("Push notification sent successfully.")
                     except Exception as e:
@@ -1,9 +1,11 @@
 from flask import Blueprint, request, jsonify, make_response
 from flask_jwt_extended import jwt_required, get_jwt_identity
-from app.models import db, Ticket
+from app.models import db, Ticket, DeletedTicket, next_sync_version, current_sync_version
 from datetime import datetime
 from sqlalchemy import extract
+from sqlalchemy.orm import defer
 import re
+import base64
 from datetime import time
 
 # Create a Blueprint for ticket-related routes
@@ -14,10 +16,22 @@ tickets_bp = Blueprint('tickets', __name__)
 def upload_ticket():
     """
     Upload a new parking ticket for the authenticated user.
-    Expects JSON with 'vehicle_number', 'location', 'date', 'time', and optionally 'image_base64'.
+    Expects JSON with 'vehicle_number', 'location', 'date', 'time', and optionally 'image_base64'
+    and 'thumbnail_base64'.
+    Alternatively accepts multipart/form-data with the same fields and the photo and its thumbnail
+    as raw file parts named 'image' and 'thumbnail' (used by the mobile app, which streams them
+    without Base64).
     Validates required fields and date/time format.
     """
-    data = request.get_json()    
+    if request.mimetype == "multipart/form-data":
+        data = request.form.to_dict()
+        # Stored the same way as images sent in JSON
+        for field, part in (("image_base64", "image"), ("thumbnail_base64", "thumbnail")):
+            upload = request.files.get(part)
+            if upload:
+                data[field] = base64.b64encode(upload.read()).decode("ascii")
+    else:
+        data = request.get_json()
 
     # Check for missing required fields
     required_fields = ["vehicle_number", "location", "date", "time"]
@@ -25,21 +39,24 @@ def upload_ticket():
     if missing:
         return jsonify({"msg": f"Brakuje wymaganych pól: {', '.join(missing)}"}), 400
     
+    user_id = int(get_jwt_identity())
     try:
         # Parse and create a new Ticket object
         ticket = Ticket(
-            user_id=int(get_jwt_identity()),
+            user_id=user_id,
             vehicle_number=data['vehicle_number'],
             location=data['location'],
             date=datetime.strptime(data['date'], "%Y-%m-%d").date(),
             time=datetime.strptime(data['time'], "%H:%M").time(),
-            image_base64 = data.get("image_base64")
+            image_base64 = data.get("image_base64"),
+            thumbnail_base64 = data.get("thumbnail_base64")
         )
     except ValueError:
         # Handle invalid date or time format
         return jsonify({"msg": "Nieprawidłowy format daty lub godziny."}), 400
 
     # Save the ticket to the database
+    ticket.sync_version = next_sync_version(user_id)
     db.session.add(ticket)
     db.session.commit()
 
@@ -48,6 +65,9 @@ def upload_ticket():
         "id": ticket.id
     }), 201
 
+# Upper bound for the page size requested with ?limit=
+MAX_PAGE_SIZE = 200
+
 @tickets_bp.route("/tickets", methods=["GET"])
 @jwt_required()
 def search_tickets():
@@ -55,11 +75,38 @@ def search_tickets():
     Search for tickets belonging to the authenticated user.
     Supports filtering by date, location, vehicle_number, and time (including partial time).
     Returns a list of matching tickets.
+
+    Optional keyset pagination: with ?limit=N the tickets are ordered by id and at most N
+    are returned; ?cursor=<value> continues after the previous page. When more tickets
+    remain, the cursor for the next page is sent in the X-Next-Cursor response header.
+    Paged responses also carry an X-Sync-Token usable with /tickets/changes.
+
+    With ?images=false the image_base64 field is left out, for clients that show
+    thumbnails (GET /ticket/<id>/thumbnail) and load full images on demand.
     """
     try:
         user_id = int(get_jwt_identity())
         filters = {k: v for k, v in request.args.items()}
+        include_images = filters.get("images", "true").lower() not in ("false", "0")
         query = Ticket.query.filter_by(user_id=user_id)
+        if not include_images:
+            # Not even read from the database
+            query = query.options(defer(Ticket.image_base64), defer(Ticket.thumbnail_base64))
+        # Taken before the query, so changes made while paging are picked up by /tickets/changes
+        sync_token = str(current_sync_version(user_id))
+
+        # Validate pagination parameters before touching the database
+        limit = None
+        if filters.get("limit"):
+            try:
+                limit = int(filters["limit"])
+                cursor = int(filters["cursor"]) if filters.get("cursor") else 0
+            except ValueError:
+                return jsonify({"msg": "Nieprawidłowe parametry stronicowania."}), 400
+            if limit < 1:
+                return jsonify({"msg": "Nieprawidłowe parametry stronicowania."}), 400
+            limit = min(limit, MAX_PAGE_SIZE)
+            query = query.filter(Ticket.id > cursor).order_by(Ticket.id)
 
         # Filter by date if provided
         if "date" in filters and filters["date"]:
@@ -85,17 +132,34 @@ def search_tickets():
                 hour = int(time_str)
                 query = query.filter(extract('hour', Ticket.time) == hour)
 
-        # Execute the query and return results
-        results = query.all()
+        # Execute the query (fetching one extra row tells whether another page exists)
+        if limit is not None:
+            results = query.limit(limit + 1).all()
+            has_more = len(results) > limit
+            results = results[:limit]
+        else:
+            results = query.all()
+            has_more = False
 
-        return jsonify([{
-            "id": t.id,
-            "vehicle_number": t.vehicle_number,
-            "location": t.location,
-            "date": str(t.date),
-            "time": str(t.time),
-            "image_base64": t.image_base64
-        } for t in results]), 200
+        tickets = []
+        for t in results:
+            ticket = {
+                "id": t.id,
+                "vehicle_number": t.vehicle_number,
+                "location": t.location,
+                "date": str(t.date),
+                "time": str(t.time)
+            }
+            if include_images:
+                ticket["image_base64"] = t.image_base64
+            tickets.append(ticket)
+        response = make_response(jsonify(tickets), 200)
+
+        if has_more:
+            response.headers["X-Next-Cursor"] = str(results[-1].id)
+        if limit is not None:
+            response.headers["X-Sync-Token"] = sync_token
+        return response
     
     except Exception as e:
         # Log and handle unexpected errors
@@ -103,6 +167,51 @@ def search_tickets():
         print("Error in /tickets:", traceback.format_exc())
         return jsonify({"msg": "Server error fetching tickets"}), 500
 
+@tickets_bp.route("/tickets/changes", methods=["GET"])
+@jwt_required()
+def ticket_changes():
+    """
+    Delta sync for the authenticated user.
+    Returns tickets created or modified and IDs of tickets deleted since the sync token
+    passed in ?since= (all tickets if omitted), together with a new sync token to use
+    on the next call. Images are not included.
+
+    The token is the user's sync version (see next_sync_version), not a timestamp, so a
+    change committed after the token was issued is never skipped, whenever it was flushed.
+    Tokens of the earlier timestamp format are rejected with 400, making clients reload.
+    """
+    user_id = int(get_jwt_identity())
+    since_param = request.args.get("since")
+    # Taken before the queries; changes committed meanwhile are simply sent again next time
+    sync_token = str(current_sync_version(user_id))
+
+    query = Ticket.query.filter_by(user_id=user_id)
+    deleted = []
+    if since_param:
+        try:
+            since = int(since_param)
+        except ValueError:
+            return jsonify({"msg": "Nieprawidłowy token synchronizacji."}), 400
+        if since < 0:
+            return jsonify({"msg": "Nieprawidłowy token synchronizacji."}), 400
+        query = query.filter(Ticket.sync_version > since)
+        deleted = [d.ticket_id for d in DeletedTicket.query.filter(
+            DeletedTicket.user_id == user_id,
+            DeletedTicket.sync_version > since
+        ).all()]
+
+    return jsonify({
+        "changed": [{
+            "id": t.id,
+            "vehicle_number": t.vehicle_number,
+            "location": t.location,
+            "date": str(t.date),
+            "time": str(t.time)
+        } for t in query.all()],
+        "deleted": deleted,
+        "sync_token": sync_token
+    }), 200
+
 @tickets_bp.route("/ticket/<int:ticket_id>", methods=["GET"])
 @jwt_required()
 def get_ticket_by_id(ticket_id):
@@ -143,6 +252,22 @@ def get_ticket_image(ticket_id):
     
     return jsonify({"image_base64": ticket.image_base64}), 200
 
+@tickets_bp.route("/ticket/<int:ticket_id>/thumbnail", methods=["GET"])
+@jwt_required()
+def get_ticket_thumbnail(ticket_id):
+    """
+    Retrieve the base64-encoded thumbnail of a ticket's image, for the ticket list.
+    Returns 404 if the ticket is not found or has no thumbnail (e.g. uploaded
+    without one), so clients never fall back to downloading the full image per row.
+    """
+    user_id = int(get_jwt_identity())
+    ticket = Ticket.query.filter_by(id=ticket_id, user_id=user_id).first()
+
+    if not ticket or not ticket.thumbnail_base64:
+        return jsonify({"msg": "Thumbnail not found"}), 404
+
+    return jsonify({"thumbnail_base64": ticket.thumbnail_base64}), 200
+
 @tickets_bp.route("/ticket/<int:ticket_id>", methods=["DELETE"])
 @jwt_required()
 def delete_ticket(ticket_id):
@@ -157,5 +282,8 @@ def delete_ticket(ticket_id):
         return jsonify({"msg": "Nie znaleziono biletu lub brak dostępu."}), 404
 
     db.session.delete(ticket)
+    # Leave a tombstone so incrementally syncing clients drop the ticket too
+    db.session.add(DeletedTicket(ticket_id=ticket.id, user_id=user_id,
+                                 sync_version=next_sync_version(user_id)))
     db.session.commit()
     return jsonify({"msg": f"Bilet {ticket_id} został usunięty."}), 200
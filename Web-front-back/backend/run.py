@@ -8,7 +8,7 @@ from app import create_app
 from flask import send_file
 import threading
 import webbrowser
-from app.models import db
+from app.models import db, upgrade_schema
 import time
 import psycopg2
 
@@ -39,6 +39,7 @@ if __name__ == "__main__":
     with app.app_context():
         #db.drop_all()
         db.create_all()
+        upgrade_schema()
         wait_for_db()
         from app.notifications import check_expired_tickets
         check_expired_tickets(app)
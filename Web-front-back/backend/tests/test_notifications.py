@@ -47,6 +47,7 @@ def test_expired_ticket_notification(mock_push, mock_email, app_context):
     assert ticket.notified is True
     assert mock_email.called
     assert mock_push.called
+    assert mock_push.call_args.kwargs["data"] == {"ticket_id": str(ticket.id)}
 
 @patch("app.notifications.send_ticket_email")
 @patch("app.notifications.send_push_notification")
@@ -1,7 +1,10 @@
+import base64
+import io
 import pytest
 from flask import Flask
 from flask_jwt_extended import create_access_token, JWTManager
-from app.models import db, Ticket
+from sqlalchemy import inspect, text
+from app.models import db, Ticket, upgrade_schema
 from app.tickets import tickets_bp  # zakładamy że tickets.py jest w app/
 
 
@@ -70,6 +73,30 @@ def test_upload_ticket_invalid_date(client, auth_headers):
     assert response.status_code == 400
     assert "Nieprawidłowy format daty" in response.get_json()["msg"]
 
+def test_upload_ticket_multipart(client, access_token):
+    # Zdjęcie jako surowe bajty w części "image" (tak wysyła aplikacja mobilna)
+    photo = b"\xff\xd8\xff\xe0 fake jpeg \xff\xd9"
+    data = {
+        "vehicle_number": "ABC123",
+        "location": "Warsaw",
+        "date": "2024-12-31",
+        "time": "12:30",
+        "image": (io.BytesIO(photo), "ticket.jpg", "image/jpeg")
+    }
+    # Bez nagłówka JSON - Content-Type z granicą ustawia klient testowy
+    response = client.post("/ticket", data=data, content_type="multipart/form-data",
+                           headers={"Authorization": f"Bearer {access_token}"})
+    assert response.status_code == 201, response.get_json()
+
+    ticket = db.session.get(Ticket, response.get_json()["id"])
+    assert base64.b64decode(ticket.image_base64) == photo
+
+def test_upload_ticket_multipart_missing_fields(client, access_token):
+    response = client.post("/ticket", data={"vehicle_number": "XYZ"}, content_type="multipart/form-data",
+                           headers={"Authorization": f"Bearer {access_token}"})
+    assert response.status_code == 400
+    assert "Brakuje wymaganych pól" in response.get_json()["msg"]
+
 # Testy: /tickets (GET)
 
 def test_search_tickets_empty(client, auth_headers):
@@ -91,6 +118,142 @@ def test_search_tickets_with_filter(client, auth_headers):
     assert len(tickets) == 1
     assert tickets[0]["location"] == "Krakow"
 
+def test_search_tickets_paginated(client, auth_headers):
+    for i in range(5):
+        client.post("/ticket", json={
+            "vehicle_number": f"PAG{i}",
+            "location": "Gdansk",
+            "date": "2024-12-30",
+            "time": "14:15"
+        }, headers=auth_headers)
+
+    first = client.get("/tickets?limit=2", headers=auth_headers)
+    assert first.status_code == 200
+    assert [t["vehicle_number"] for t in first.get_json()] == ["PAG0", "PAG1"]
+    cursor = first.headers["X-Next-Cursor"]
+
+    second = client.get(f"/tickets?limit=2&cursor={cursor}", headers=auth_headers)
+    assert [t["vehicle_number"] for t in second.get_json()] == ["PAG2", "PAG3"]
+    cursor = second.headers["X-Next-Cursor"]
+
+    last = client.get(f"/tickets?limit=2&cursor={cursor}", headers=auth_headers)
+    assert [t["vehicle_number"] for t in last.get_json()] == ["PAG4"]
+    assert "X-Next-Cursor" not in last.headers
+    assert "X-Sync-Token" in last.headers
+
+def test_search_tickets_without_images(client, access_token):
+    headers = {"Authorization": f"Bearer {access_token}"}
+    client.post("/ticket", data={
+        "vehicle_number": "IMG1",
+        "location": "Gdansk",
+        "date": "2024-12-30",
+        "time": "14:15",
+        "image": (io.BytesIO(b"fake jpeg"), "ticket.jpg")
+    }, headers=headers, content_type="multipart/form-data")
+
+    # Domyślnie lista zawiera obraz (frontend webowy z niego korzysta)
+    full = client.get("/tickets?limit=10", headers=headers).get_json()
+    assert full[0]["image_base64"] == base64.b64encode(b"fake jpeg").decode("ascii")
+
+    # Aplikacja mobilna pobiera listę bez obrazów
+    light = client.get("/tickets?limit=10&images=false", headers=headers).get_json()
+    assert light[0]["vehicle_number"] == "IMG1"
+    assert "image_base64" not in light[0]
+
+def test_search_tickets_invalid_page_params(client, auth_headers):
+    response = client.get("/tickets?limit=abc", headers=auth_headers)
+    assert response.status_code == 400
+    assert "stronicowania" in response.get_json()["msg"]
+
+# Testy: /tickets/changes (GET)
+
+def test_ticket_changes_since_token(client, auth_headers):
+    old = client.post("/ticket", json={
+        "vehicle_number": "OLD1",
+        "location": "Torun",
+        "date": "2024-11-01",
+        "time": "08:00"
+    }, headers=auth_headers).get_json()["id"]
+    gone = client.post("/ticket", json={
+        "vehicle_number": "GONE1",
+        "location": "Torun",
+        "date": "2024-11-02",
+        "time": "08:00"
+    }, headers=auth_headers).get_json()["id"]
+
+    full = client.get("/tickets/changes", headers=auth_headers).get_json()
+    assert {t["id"] for t in full["changed"]} == {old, gone}
+    assert full["deleted"] == []
+
+    client.delete(f"/ticket/{gone}", headers=auth_headers)
+    new = client.post("/ticket", json={
+        "vehicle_number": "NEW1",
+        "location": "Torun",
+        "date": "2024-11-03",
+        "time": "08:00"
+    }, headers=auth_headers).get_json()["id"]
+
+    delta = client.get(f"/tickets/changes?since={full['sync_token']}", headers=auth_headers).get_json()
+    assert [t["id"] for t in delta["changed"]] == [new]
+    assert delta["deleted"] == [gone]
+    assert "image_base64" not in delta["changed"][0]
+
+def test_ticket_changes_invalid_token(client, auth_headers):
+    response = client.get("/tickets/changes?since=yesterday", headers=auth_headers)
+    assert response.status_code == 400
+
+def test_ticket_changes_rejects_timestamp_token(client, auth_headers):
+    # Tokeny w dawnym formacie (znacznik czasu) wymuszają pełne przeładowanie po stronie klienta
+    response = client.get("/tickets/changes?since=2024-11-01T08:00:00", headers=auth_headers)
+    assert response.status_code == 400
+
+def test_ticket_changes_token_is_version(client, auth_headers):
+    assert client.get("/tickets/changes", headers=auth_headers).get_json()["sync_token"] == "0"
+    ticket_id = client.post("/ticket", json={
+        "vehicle_number": "VER1",
+        "location": "Torun",
+        "date": "2024-11-01",
+        "time": "08:00"
+    }, headers=auth_headers).get_json()["id"]
+
+    first = client.get("/tickets/changes?since=0", headers=auth_headers).get_json()
+    assert [t["id"] for t in first["changed"]] == [ticket_id]
+    assert first["sync_token"] == "1"
+
+    # Usunięcie to kolejna wersja
+    client.delete(f"/ticket/{ticket_id}", headers=auth_headers)
+    second = client.get(f"/tickets/changes?since={first['sync_token']}", headers=auth_headers).get_json()
+    assert second["changed"] == []
+    assert second["deleted"] == [ticket_id]
+    assert second["sync_token"] == "2"
+
+    # Nic się nie zmieniło od ostatniego tokenu
+    third = client.get(f"/tickets/changes?since={second['sync_token']}", headers=auth_headers).get_json()
+    assert third["changed"] == [] and third["deleted"] == []
+
+# Testy: upgrade_schema
+
+def test_upgrade_schema_adds_missing_columns(app):
+    # Tabela ticket w postaci sprzed dodania kolumn synchronizacji i miniatur
+    Ticket.__table__.drop(db.engine)
+    with db.engine.begin() as conn:
+        conn.execute(text(
+            "CREATE TABLE ticket (id INTEGER PRIMARY KEY, user_id INTEGER NOT NULL, "
+            "vehicle_number VARCHAR(20), location VARCHAR(100), date DATE, time TIME, "
+            "image_base64 TEXT, uploaded_at DATETIME, notified BOOLEAN)"
+        ))
+
+    upgrade_schema()
+
+    inspector = inspect(db.engine)
+    columns = {column["name"] for column in inspector.get_columns("ticket")}
+    assert {"thumbnail_base64", "updated_at", "sync_version"} <= columns
+    indexes = {index["name"] for index in inspector.get_indexes("ticket")}
+    assert "ix_ticket_sync_version" in indexes
+
+    # Ponowne wywołanie niczego nie zmienia
+    upgrade_schema()
+
 # Testy: /ticket/<id> (GET)
 
 def test_get_ticket_by_id(client, auth_headers):
@@ -108,6 +271,41 @@ def test_get_ticket_by_id(client, auth_headers):
     assert get_response.status_code == 200
     assert get_response.get_json()["location"] == "Lodz"
 
+# Testy: /ticket/<id>/thumbnail (GET)
+
+def test_get_ticket_thumbnail(client, access_token):
+    # Miniatura wysłana jako osobna część "thumbnail", obok pełnego zdjęcia
+    photo = b"\xff\xd8 full photo \xff\xd9"
+    thumbnail = b"\xff\xd8 thumb \xff\xd9"
+    headers = {"Authorization": f"Bearer {access_token}"}
+    post_response = client.post("/ticket", data={
+        "vehicle_number": "ABC123",
+        "location": "Warsaw",
+        "date": "2024-12-31",
+        "time": "12:30",
+        "image": (io.BytesIO(photo), "ticket.jpg", "image/jpeg"),
+        "thumbnail": (io.BytesIO(thumbnail), "thumbnail.jpg", "image/jpeg")
+    }, content_type="multipart/form-data", headers=headers)
+    assert post_response.status_code == 201, post_response.get_json()
+    ticket_id = post_response.get_json()["id"]
+
+    response = client.get(f"/ticket/{ticket_id}/thumbnail", headers=headers)
+    assert response.status_code == 200
+    assert base64.b64decode(response.get_json()["thumbnail_base64"]) == thumbnail
+
+def test_get_ticket_thumbnail_missing(client, auth_headers):
+    # Bilet bez miniatury - 404 zamiast pełnego zdjęcia
+    ticket_id = client.post("/ticket", json={
+        "vehicle_number": "XYZ789",
+        "location": "Gdansk",
+        "date": "2024-12-31",
+        "time": "12:30",
+        "image_base64": base64.b64encode(b"photo").decode("ascii")
+    }, headers=auth_headers).get_json()["id"]
+
+    response = client.get(f"/ticket/{ticket_id}/thumbnail", headers=auth_headers)
+    assert response.status_code == 404
+
 # Testy: /ticket/<id> (DELETE)
 
 def test_delete_ticket_success(client, auth_headers):